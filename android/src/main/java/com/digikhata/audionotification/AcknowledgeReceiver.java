@@ -3,20 +3,30 @@ package com.digikhata.audionotification;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.service.notification.StatusBarNotification;
 import android.util.Log;
-import androidx.core.app.NotificationManagerCompat;
-import java.util.Arrays;
 
+/**
+ * Handles the acknowledge actions of payment notifications. Acknowledging one payment
+ * cancels only that payment's announcement and notification; the summary's action
+ * acknowledges every payment at once.
+ */
 public class AcknowledgeReceiver extends BroadcastReceiver {
     private static final String TAG = "AcknowledgeReceiver";
+    public static final String EXTRA_NOTIFICATION_ID = "notificationId";
+    public static final String EXTRA_ALL = "acknowledgeAll";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "Acknowledge action received");
-
         try {
-            int notificationId = intent.getIntExtra("notificationId", -1);
+            int notificationId = intent.getIntExtra(EXTRA_NOTIFICATION_ID, -1);
+            if (intent.getBooleanExtra(EXTRA_ALL, false) || notificationId == PaymentNotificationScheduler.SUMMARY_NOTIFICATION_ID) {
+                FlightRecorder.get().record(FlightRecorder.ACKNOWLEDGE_RECEIVED, -1, 1);
+                NativeAudioNotification.getInstance(context).acknowledgeAll();
+                PaymentNotificationScheduler.getInstance(context).acknowledgeAll();
+                return;
+            }
+
+            FlightRecorder.get().record(FlightRecorder.ACKNOWLEDGE_RECEIVED, notificationId, 0);
             if (notificationId == -1) {
                 Log.w(TAG, "Invalid or missing notificationId in intent");
                 return;
@@ -24,26 +34,17 @@ public class AcknowledgeReceiver extends BroadcastReceiver {
 
             NativeAudioNotification audioNotification = NativeAudioNotification.getInstance(context);
             if (audioNotification != null) {
-                audioNotification.stopTts();
-                Log.d(TAG, "TTS stopped for notification ID: " + notificationId);
+                audioNotification.acknowledge(notificationId);
             } else {
                 Log.w(TAG, "NativeAudioNotification instance not available");
             }
 
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
-            StatusBarNotification[] activeNotifications = notificationManager.getActiveNotifications();
-            boolean notificationExists = Arrays.stream(activeNotifications)
-                    .anyMatch(n -> n.getId() == notificationId);
-            if (notificationExists) {
-                notificationManager.cancel(notificationId);
-                Log.d(TAG, "Notification dismissed with ID: " + notificationId);
-            } else {
-                Log.w(TAG, "Notification with ID " + notificationId + " not found");
-            }
+            // Cancelling a notification that is already gone is a no-op, so there is no need to look it up first.
+            PaymentNotificationScheduler.getInstance(context).acknowledge(notificationId);
         } catch (SecurityException e) {
             Log.e(TAG, "Security exception during acknowledgment: " + e.getMessage(), e);
         } catch (Exception e) {
             Log.e(TAG, "Error processing acknowledgment: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package com.digikhata.audionotification;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every audio engine operation on one dedicated thread. Any thread may submit typed
+ * commands to a lock-free queue; the actor thread drains them in submission order, so the
+ * TTS engines, the announcement in flight and the wake lock reference are only ever
+ * touched by one thread and callers never block on each other.
+ */
+public class AudioActor {
+    private static final String TAG = "AudioActor";
+
+    public enum Type {
+        /** Queue an announcement. */
+        SPEAK,
+        /** Stop speech and drop everything queued. */
+        STOP,
+        /** A payment notification was acknowledged by the user; only its own announcement stops. */
+        ACKNOWLEDGE,
+        /** Every payment was acknowledged at once; stops speech and drops everything queued. */
+        ACKNOWLEDGE_ALL,
+        /** Release the engines and stop the actor thread; later commands are rejected. */
+        SHUTDOWN,
+        /** Run a configuration or engine lifecycle task. */
+        CONFIGURE,
+        ENGINE_INIT,
+        UTTERANCE_STARTED,
+        UTTERANCE_DONE,
+        UTTERANCE_ERROR,
+        UTTERANCE_STOPPED,
+        CLIPS_DONE
+    }
+
+    public static final class Command {
+        public final Type type;
+        public final Announcement announcement;
+        public final String utteranceId;
+        public final int arg;
+        public final Runnable task;
+        final long submittedAt = SystemClock.elapsedRealtime();
+
+        private Command(Type type, Announcement announcement, String utteranceId, int arg, Runnable task) {
+            this.type = type;
+            this.announcement = announcement;
+            this.utteranceId = utteranceId;
+            this.arg = arg;
+            this.task = task;
+        }
+
+        public static Command speak(Announcement announcement) {
+            return new Command(Type.SPEAK, announcement, null, 0, null);
+        }
+
+        public static Command stop() {
+            return new Command(Type.STOP, null, null, 0, null);
+        }
+
+        public static Command acknowledge(int notificationId) {
+            return new Command(Type.ACKNOWLEDGE, null, null, notificationId, null);
+        }
+
+        public static Command acknowledgeAll() {
+            return new Command(Type.ACKNOWLEDGE_ALL, null, null, 0, null);
+        }
+
+        public static Command shutdown() {
+            return new Command(Type.SHUTDOWN, null, null, 0, null);
+        }
+
+        public static Command configure(Runnable task) {
+            return new Command(Type.CONFIGURE, null, null, 0, task);
+        }
+
+        public static Command engineInit(int status) {
+            return new Command(Type.ENGINE_INIT, null, null, status, null);
+        }
+
+        /** @param type One of the UTTERANCE_* types or {@link Type#CLIPS_DONE}. */
+        public static Command utterance(Type type, String utteranceId) {
+            return new Command(type, null, utteranceId, 0, null);
+        }
+    }
+
+    /** Handles commands on the actor thread. */
+    public interface Target {
+        void onCommand(Command command);
+    }
+
+    private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final Target target;
+    private final Runnable drain = this::drain;
+    private volatile boolean shutdown;
+
+    public AudioActor(Target target) {
+        this.target = target;
+        this.thread = new HandlerThread("AudioActor");
+        this.thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Queues a command for the actor thread. Never blocks.
+     * @return false if the actor has been shut down and the command was dropped.
+     */
+    public boolean submit(Command command) {
+        if (shutdown) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (command.type == Type.SHUTDOWN) shutdown = true;
+        commands.offer(command);
+        submitted.incrementAndGet();
+        if (drainScheduled.compareAndSet(false, true)) {
+            handler.post(drain);
+        }
+        return true;
+    }
+
+    private void drain() {
+        // Cleared before polling, so a command offered during the drain schedules another pass.
+        drainScheduled.set(false);
+        Command command;
+        while ((command = commands.poll()) != null) {
+            PaymentMetrics.get().audioCommand.record(SystemClock.elapsedRealtime() - command.submittedAt);
+            try {
+                target.onCommand(command);
+            } catch (Exception e) {
+                Log.e(TAG, "Error handling " + command.type + ": " + e.getMessage(), e);
+            }
+            if (command.type == Type.SHUTDOWN) {
+                commands.clear();
+                handler.removeCallbacksAndMessages(null);
+                thread.quitSafely();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for the actor thread to finish after a shutdown command.
+     * @return false if it was still running when the timeout passed.
+     */
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        thread.join(timeoutMs);
+        return !thread.isAlive();
+    }
+
+    /** @return A handler on the actor thread, for timers that must run there. */
+    public Handler getHandler() {
+        return handler;
+    }
+
+    public boolean isActorThread() {
+        return Looper.myLooper() == thread.getLooper();
+    }
+
+    public int getPending() {
+        return commands.size();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
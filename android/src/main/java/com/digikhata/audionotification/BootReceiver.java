@@ -21,15 +21,8 @@ public class BootReceiver extends BroadcastReceiver {
             try {
                 Log.d(TAG, "Initializing payment notification system after boot/update");
 
-                NotificationChannelHelper.createPaymentNotificationChannel(
-                        context,
-                        NotificationChannelHelper.DEFAULT_CHANNEL_ID,
-                        NotificationChannelHelper.DEFAULT_CHANNEL_NAME,
-                        NotificationChannelHelper.DEFAULT_CHANNEL_DESCRIPTION,
-                        NotificationChannelHelper.DEFAULT_GROUP_ID,
-                        NotificationChannelHelper.DEFAULT_GROUP_NAME
-                );
-                Log.d(TAG, "Notification channel initialized successfully");
+                // Only touches NotificationManager when the channel configuration has changed.
+                NotificationChannelHelper.ensurePaymentNotificationChannel(context);
 
                 Intent serviceIntent = new Intent(context, PaymentMessagingService.class);
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
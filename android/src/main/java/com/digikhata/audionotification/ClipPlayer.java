@@ -0,0 +1,235 @@
+package com.digikhata.audionotification;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Soundbox-style announcer: speaks "&lt;amount&gt; &lt;currency&gt; received" by streaming
+ * prerecorded clips from a {@link ClipBank} through one long-lived low-latency
+ * {@link AudioTrack}. The bank is memory-mapped from
+ * {@code assets/audio_clips/<language>.clips}, which the app must store uncompressed
+ * ({@code noCompress 'clips'}); a compressed asset is read into a direct buffer instead.
+ * <p>
+ * Only one phrase plays at a time. Clip sequences are built into a preallocated array and
+ * written from the mapped slices, so an announcement allocates nothing on the audio path.
+ */
+public class ClipPlayer {
+    private static final String TAG = "ClipPlayer";
+    private static final String ASSET_DIR = "audio_clips/";
+    private static final String ASSET_SUFFIX = ".clips";
+    private static final long DONE_GRACE_MS = 1000;
+
+    /** Playback callbacks, delivered on the player thread. */
+    public interface Listener {
+        void onClipsStarted(String utteranceId);
+
+        void onClipsDone(String utteranceId);
+
+        void onClipsStopped(String utteranceId);
+    }
+
+    private final ClipPhrase phrase;
+    private final Listener listener;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final AudioTrack track;
+    private final int[] sequence = new int[ClipPhrase.MAX_CLIPS];
+    private final Runnable render = this::render;
+    private final Runnable doneTimeout = () -> finish(true);
+    private int sequenceLength;
+    private String utteranceId;
+    private volatile boolean cancelled;
+    private long played;
+
+    private ClipPlayer(ClipBank bank, Listener listener) {
+        this.phrase = new ClipPhrase(bank);
+        this.listener = listener;
+        this.thread = new HandlerThread("ClipPlayer");
+        this.thread.start();
+        this.handler = new Handler(thread.getLooper());
+        this.track = createTrack(bank.getSampleRate());
+        this.track.setPlaybackPositionUpdateListener(new AudioTrack.OnPlaybackPositionUpdateListener() {
+            @Override
+            public void onMarkerReached(AudioTrack t) {
+                finish(true);
+            }
+
+            @Override
+            public void onPeriodicNotification(AudioTrack t) {}
+        }, handler);
+    }
+
+    /**
+     * Loads the clip bank for a language.
+     * @param language The bank name, e.g. "en".
+     * @return The player, or null if the app ships no bank for the language or it is invalid.
+     */
+    public static ClipPlayer open(Context context, String language, Listener listener) {
+        String asset = ASSET_DIR + language + ASSET_SUFFIX;
+        try {
+            ClipBank bank = ClipBank.parse(mapAsset(context, asset));
+            Log.d(TAG, "Loaded " + bank.getClipCount() + " clips from " + asset);
+            return new ClipPlayer(bank, listener);
+        } catch (IOException e) {
+            Log.d(TAG, "No clip bank at " + asset);
+            return null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading clip bank " + asset + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static ByteBuffer mapAsset(Context context, String asset) throws IOException {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(asset);
+             FileInputStream in = fd.createInputStream();
+             FileChannel channel = in.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+        } catch (IOException e) {
+            // openFd fails for compressed assets as well as missing ones; open() tells them apart.
+        }
+        try (InputStream in = context.getAssets().open(asset)) {
+            byte[] bytes = new byte[in.available()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(read);
+            buffer.put(bytes, 0, read).flip();
+            return buffer;
+        }
+    }
+
+    private static AudioTrack createTrack(int sampleRate) {
+        int minBuffer = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ALARM)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setBufferSizeInBytes(Math.max(minBuffer, 2048) * 2);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Starts "&lt;amount&gt; &lt;unit&gt; received" if the bank can say it.
+     * @return false if a phrase is already playing or the bank lacks a needed word; the caller
+     *         should speak the announcement through TTS instead.
+     */
+    public synchronized boolean play(long minor, SpokenAmount.Unit unit, String utteranceId) {
+        if (this.utteranceId != null) return false;
+        int length = phrase.build(minor, unit, sequence);
+        if (length <= 0) return false;
+        this.sequenceLength = length;
+        this.utteranceId = utteranceId;
+        this.cancelled = false;
+        played++;
+        handler.post(render);
+        return true;
+    }
+
+    private void render() {
+        String id;
+        int length;
+        synchronized (this) {
+            id = utteranceId;
+            length = sequenceLength;
+        }
+        if (id == null || cancelled) return;
+        ClipBank bank = phrase.getBank();
+        int frames = 0;
+        for (int i = 0; i < length; i++) frames += bank.getFrames(sequence[i]);
+        try {
+            track.setNotificationMarkerPosition(frames);
+            track.play();
+            listener.onClipsStarted(id);
+            for (int i = 0; i < length && !cancelled; i++) {
+                ByteBuffer clip = bank.clip(sequence[i]);
+                int size = clip.remaining();
+                int written = 0;
+                while (written < size && !cancelled) {
+                    int n = track.write(clip, size - written, AudioTrack.WRITE_BLOCKING);
+                    if (n <= 0) throw new IllegalStateException("AudioTrack write failed: " + n);
+                    written += n;
+                }
+            }
+            if (cancelled) return;
+            // In streaming mode stop() lets the written frames drain; the marker reports the end.
+            track.stop();
+            handler.postDelayed(doneTimeout, frames * 1000L / bank.getSampleRate() + DONE_GRACE_MS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error playing clips: " + e.getMessage(), e);
+            finish(false);
+        }
+    }
+
+    private void finish(boolean completed) {
+        String id;
+        synchronized (this) {
+            id = utteranceId;
+            utteranceId = null;
+        }
+        handler.removeCallbacks(doneTimeout);
+        if (id == null) return;
+        if (completed) {
+            listener.onClipsDone(id);
+        } else {
+            listener.onClipsStopped(id);
+        }
+    }
+
+    /** Stops the current phrase immediately and reports it as stopped. */
+    public void stop() {
+        synchronized (this) {
+            if (utteranceId == null) return;
+            cancelled = true;
+        }
+        try {
+            track.pause();
+            track.flush();
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping clip playback: " + e.getMessage(), e);
+        }
+        handler.post(() -> finish(false));
+    }
+
+    public synchronized boolean isPlaying() {
+        return utteranceId != null;
+    }
+
+    public synchronized long getPlayed() {
+        return played;
+    }
+
+    public void release() {
+        stop();
+        handler.post(() -> {
+            track.release();
+            thread.quitSafely();
+        });
+    }
+}
@@ -1,36 +1,141 @@
 package com.digikhata.audionotification;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
+import android.content.SharedPreferences;
 import android.media.AudioAttributes;
-import android.os.Build;
-import android.os.PowerManager;
+import android.os.SystemClock;
+import android.text.TextUtils;
 import android.speech.tts.TextToSpeech;
 import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
 import android.util.Log;
-import androidx.core.app.NotificationCompat;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Announcement engine. Public methods may be called from any thread: they only submit
+ * commands to an {@link AudioActor}, and all engine state below is owned by the actor
+ * thread. TTS and clip callbacks are turned into commands as well.
+ */
+public class NativeAudioNotification implements TextToSpeech.OnInitListener, AudioActor.Target {
+    public enum EngineState { INITIALIZING, READY, FAILED, REINITIALIZING }
 
-public class NativeAudioNotification implements TextToSpeech.OnInitListener {
     private static final String TAG = "NativeAudioNotification";
-    private static final String CHANNEL_ID = NotificationChannelHelper.DEFAULT_CHANNEL_ID;
+    private static final String UTTERANCE_PREFIX = "payment_utterance_";
+    private static final String SYNTH_PREFIX = "synth_";
+    private static final String CACHED_SPEECH_PREFIX = "cached_announcement_";
+    private static final String SENDER_SUFFIX = "_sender";
+    private static final String CACHE_DIR = "tts_cache";
+    private static final String RETRY_FILE = "announcement_retry.bin";
+    private static final String PREFS_NAME = "native_audio_notification";
+    private static final String PREF_QUEUE_DEPTH = "queueDepth";
+    private static final String PREF_COALESCE_THRESHOLD = "coalesceThreshold";
+    private static final String PREF_STALE_AFTER_MS = "staleAfterMs";
+    private static final String PREF_EXPIRE_AFTER_MS = "expireAfterMs";
+    private static final String PREF_WARM_LANGUAGES = "warmLanguages";
+    private static final String PREF_ANNOUNCER = "announcer";
+    public static final String ANNOUNCER_TTS = "tts";
+    public static final String ANNOUNCER_CLIPS = "clips";
+    private static final String CLIP_BANK_LANGUAGE = "en";
+    private static final int MAX_WARM_LANGUAGES = 2;
+    private static final long MAX_UTTERANCE_MS = 30000;
+    private static final long PENDING_DEADLINE_MS = 30000;
+    private static final long REINIT_BASE_DELAY_MS = 1000;
+    private static final int MAX_REINIT_ATTEMPTS = 5;
+    private static final int MAX_ACKNOWLEDGE_ENTRIES = 64;
+    private static final long SHUTDOWN_WAIT_MS = 2000;
     private static NativeAudioNotification instance;
-    private Context context;
+    private final Context context;
+    private final AudioActor actor;
+    private final Runnable reinitialize = this::reinitializeEngine;
+    private final Runnable retryDue = this::retryDue;
+    private final FlightRecorder trace = FlightRecorder.get();
+    private volatile String merchantBusiness = "Your Business";
+    private final TtsSynthesisCache synthesisCache;
+    private final UtteranceListener utteranceListener = new UtteranceListener();
+    private final TtsEnginePool enginePool;
+    private final AnnouncementRetryQueue retryQueue;
+    private final AnnouncementQueue announcementQueue = new AnnouncementQueue(AnnouncementQueue.DEFAULT_MAX_DEPTH, AnnouncementQueue.DEFAULT_COALESCE_THRESHOLD);
+    private final long createdAt = SystemClock.elapsedRealtime();
+    private volatile String announcer = ANNOUNCER_TTS;
+    private volatile List<String> warmLanguages = new ArrayList<>();
+    private volatile EngineState engineState = EngineState.INITIALIZING;
+    private volatile long initDurationMs = -1;
+    private volatile long timeToFirstAudioMs = -1;
+    private volatile long reinitializations;
+    private volatile long bufferedBeforeReady;
+    private volatile long languageFallbacks;
+    private volatile long clipFallbacks;
+    private volatile long acknowledged;
+    private volatile ClipPlayer clipPlayer;
+
+    // Owned by the actor thread.
     private TextToSpeech tts;
-    private String merchantBusiness = "Your Business";
-    private PowerManager.WakeLock wakeLock;
+    private String engineLocale = "";
+    private String engineVoice = "";
+    private boolean holdsWakeLock;
+    /** The safety timeout count when our reference was taken, to notice it being force-released. */
+    private long wakeLockTimeouts;
+    private String currentUtteranceId;
+    private Announcement currentAnnouncement;
+    private String currentSenderText;
+    private long currentStartedAt;
+    private long speechStartedAt;
+    private long utteranceCounter;
+    private int reinitAttempts;
+    private long engineInitStartedAt = createdAt;
+    private int consecutiveSpeakFailures;
+    // A cache synthesis waits until nothing is queued or playing, then runs on the engine that
+    // spoke the text; it is stopped as soon as another announcement arrives.
+    private TextToSpeech deferredSynthesisEngine;
+    private String deferredSynthesisText;
+    private String deferredSynthesisKey;
+    private TextToSpeech synthesisEngine;
+    // Cleared by the progress listener once the synthesis ends.
+    private volatile String synthesisKey;
+    // Notification ID to the announcement speaking it, queued or playing. Announcements that
+    // are dropped or folded into a summary are left to age out rather than searched for.
+    private final Map<Integer, Announcement> acknowledgeIndex = new LinkedHashMap<Integer, Announcement>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Announcement> eldest) {
+            return size() > MAX_ACKNOWLEDGE_ENTRIES;
+        }
+    };
 
     private NativeAudioNotification(Context context) {
         this.context = context != null ? context.getApplicationContext() : null;
+        TtsSynthesisCache cache = null;
+        TtsEnginePool pool = null;
+        AnnouncementRetryQueue retries = null;
+        actor = new AudioActor(this);
         try {
-            tts = new TextToSpeech(this.context, this);
+            if (this.context != null) {
+                cache = new TtsSynthesisCache(new File(this.context.getCacheDir(), CACHE_DIR), TtsSynthesisCache.DEFAULT_MAX_BYTES);
+                SharedPreferences prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                announcementQueue.setLimits(
+                        prefs.getInt(PREF_QUEUE_DEPTH, AnnouncementQueue.DEFAULT_MAX_DEPTH),
+                        prefs.getInt(PREF_COALESCE_THRESHOLD, AnnouncementQueue.DEFAULT_COALESCE_THRESHOLD));
+                announcementQueue.setAgeLimits(
+                        prefs.getLong(PREF_STALE_AFTER_MS, AnnouncementQueue.DEFAULT_STALE_AFTER_MS),
+                        prefs.getLong(PREF_EXPIRE_AFTER_MS, AnnouncementQueue.DEFAULT_EXPIRE_AFTER_MS));
+                warmLanguages = splitLanguages(prefs.getString(PREF_WARM_LANGUAGES, ""));
+                announcer = prefs.getString(PREF_ANNOUNCER, ANNOUNCER_TTS);
+                pool = new TtsEnginePool(this.context, utteranceListener, actor.getHandler());
+                retries = new AnnouncementRetryQueue(new File(this.context.getFilesDir(), RETRY_FILE),
+                        retryCapacity(), announcementQueue.getExpireAfterMs());
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error initializing NativeAudioNotification: " + e.getMessage(), e);
         }
+        synthesisCache = cache;
+        enginePool = pool;
+        retryQueue = retries;
+        actor.submit(AudioActor.Command.configure(this::startEngines));
     }
 
     public static synchronized NativeAudioNotification getInstance(Context context) {
@@ -40,35 +145,181 @@ public class NativeAudioNotification implements TextToSpeech.OnInitListener {
         return instance;
     }
 
+    /**
+     * Shuts the engine down and waits for it to persist what was left unspoken, so the next
+     * {@link #getInstance(Context)} loads the retry file only after the last write to it.
+     */
     public static synchronized void destroyInstance() {
-        if (instance != null) {
-            instance.cleanup();
-            instance = null;
+        if (instance == null) return;
+        NativeAudioNotification old = instance;
+        instance = null;
+        old.cleanup();
+        if (old.actor.isActorThread()) return;
+        try {
+            if (!old.actor.awaitTermination(SHUTDOWN_WAIT_MS)) {
+                Log.w(TAG, "Audio actor still shutting down after " + SHUTDOWN_WAIT_MS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    @Override
+    public void onCommand(AudioActor.Command command) {
+        switch (command.type) {
+            case SPEAK:
+                enqueue(command.announcement);
+                break;
+            case STOP:
+                stopAll();
+                break;
+            case ACKNOWLEDGE:
+                acknowledgeNotification(command.arg);
+                break;
+            case ACKNOWLEDGE_ALL:
+                stopAll();
+                break;
+            case SHUTDOWN:
+                shutdownEngines();
+                break;
+            case CONFIGURE:
+                command.task.run();
+                break;
+            case ENGINE_INIT:
+                handleEngineInit(command.arg);
+                break;
+            case UTTERANCE_STARTED:
+                handleUtteranceStarted(command.utteranceId);
+                break;
+            case UTTERANCE_DONE:
+                handleUtteranceDone(command.utteranceId);
+                break;
+            case UTTERANCE_ERROR:
+                handleUtteranceError(command.utteranceId);
+                break;
+            case UTTERANCE_STOPPED:
+                handleUtteranceStopped(command.utteranceId);
+                break;
+            case CLIPS_DONE:
+                handleClipsDone(command.utteranceId);
+                break;
+        }
+    }
+
+    private void startEngines() {
+        try {
+            if (context != null && ANNOUNCER_CLIPS.equals(announcer)) {
+                clipPlayer = ClipPlayer.open(context, CLIP_BANK_LANGUAGE, clipListener);
+            }
+            createEngine();
+        } catch (Exception e) {
+            Log.e(TAG, "Error creating TTS engine: " + e.getMessage(), e);
+            onEngineFailed(-1);
+        }
+    }
+
+    private void createEngine() {
+        engineInitStartedAt = SystemClock.elapsedRealtime();
+        tts = new TextToSpeech(this.context, this);
+        tts.setOnUtteranceProgressListener(utteranceListener);
+    }
+
     @Override
     public void onInit(int status) {
+        actor.submit(AudioActor.Command.engineInit(status));
+    }
+
+    private void handleEngineInit(int status) {
         try {
+            if (tts == null) return;
             if (status == TextToSpeech.SUCCESS) {
                 int result = tts.setLanguage(Locale.ENGLISH);
                 if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
                     Log.e(TAG, "TTS language not supported, falling back to default");
                     tts.setLanguage(Locale.getDefault());
                 }
+                Voice voice = tts.getVoice();
+                if (voice != null) {
+                    engineLocale = voice.getLocale().toLanguageTag();
+                    engineVoice = voice.getName();
+                }
+                initDurationMs = SystemClock.elapsedRealtime() - engineInitStartedAt;
+                reinitAttempts = 0;
+                engineState = EngineState.READY;
+                trace.record(FlightRecorder.ENGINE_READY, initDurationMs, announcementQueue.size());
+                dispatchNext();
+                retryDue();
+                warmLanguageEngines();
             } else {
-                Log.e(TAG, "TTS initialization failed with status: " + status);
+                onEngineFailed(status);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error in TTS onInit: " + e.getMessage(), e);
+            onEngineFailed(-1);
+        }
+    }
+
+    /**
+     * Marks the engine failed and schedules a re-initialization with exponential backoff.
+     * @param status The failed onInit status, or -1 for other failures.
+     */
+    private void onEngineFailed(int status) {
+        engineState = EngineState.FAILED;
+        trace.record(FlightRecorder.ENGINE_FAILED, status, reinitAttempts);
+        if (context == null || reinitAttempts >= MAX_REINIT_ATTEMPTS) {
+            Log.e(TAG, "TTS engine unavailable, giving up on re-initialization");
+            return;
         }
+        long delay = REINIT_BASE_DELAY_MS << reinitAttempts;
+        reinitAttempts++;
+        actor.getHandler().postDelayed(reinitialize, delay);
+    }
+
+    private void reinitializeEngine() {
+        if (engineState != EngineState.FAILED) return;
+        engineState = EngineState.REINITIALIZING;
+        reinitializations++;
+        try {
+            if (tts != null) {
+                tts.shutdown();
+            }
+            createEngine();
+        } catch (Exception e) {
+            Log.e(TAG, "Error re-initializing TTS: " + e.getMessage(), e);
+            onEngineFailed(-1);
+        }
+    }
+
+    public EngineState getEngineState() {
+        return engineState;
+    }
+
+    /** @return Milliseconds from the last engine creation to a successful onInit, or -1 if not ready yet. */
+    public long getInitDurationMs() {
+        return initDurationMs;
+    }
+
+    /** @return Milliseconds from the creation of this instance to the first audio, or -1 if nothing has played. */
+    public long getTimeToFirstAudioMs() {
+        return timeToFirstAudioMs;
+    }
+
+    public long getReinitializations() {
+        return reinitializations;
+    }
+
+    public long getBufferedBeforeReady() {
+        return bufferedBeforeReady;
+    }
+
+    public AudioActor getActor() {
+        return actor;
     }
 
     public void setMerchantInfo(String businessName) {
         try {
             if (businessName != null && !businessName.trim().isEmpty()) {
                 this.merchantBusiness = businessName;
-                Log.d(TAG, "Merchant business set to: " + businessName);
             } else {
                 Log.w(TAG, "Invalid or empty business name provided, using default");
             }
@@ -77,140 +328,795 @@ public class NativeAudioNotification implements TextToSpeech.OnInitListener {
         }
     }
 
+    /**
+     * Configures the announcement queue and persists the limits for later cold starts.
+     * @param queueDepth The maximum number of pending announcements.
+     * @param coalesceThreshold The number of pending payments above which they are spoken as one summary.
+     */
+    public void configureQueue(int queueDepth, int coalesceThreshold) {
+        try {
+            announcementQueue.setLimits(queueDepth, coalesceThreshold);
+            if (retryQueue != null) retryQueue.setCapacity(retryCapacity());
+            if (context != null) {
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                        .putInt(PREF_QUEUE_DEPTH, announcementQueue.getMaxDepth())
+                        .putInt(PREF_COALESCE_THRESHOLD, announcementQueue.getCoalesceThreshold())
+                        .apply();
+            }
+            trace.record(FlightRecorder.CONFIGURED, announcementQueue.getMaxDepth(), announcementQueue.getCoalesceThreshold());
+        } catch (Exception e) {
+            Log.e(TAG, "Error configuring announcement queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Configures how old a payment may be, measured from its FCM send time, and persists the
+     * limits for later cold starts.
+     * @param staleAfterMs The age after which only the amount is spoken.
+     * @param expireAfterMs The age after which the payment is no longer announced.
+     */
+    public void configureAgeLimits(long staleAfterMs, long expireAfterMs) {
+        try {
+            announcementQueue.setAgeLimits(staleAfterMs, expireAfterMs);
+            if (retryQueue != null) retryQueue.setMaxAgeMs(announcementQueue.getExpireAfterMs());
+            if (context != null) {
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                        .putLong(PREF_STALE_AFTER_MS, announcementQueue.getStaleAfterMs())
+                        .putLong(PREF_EXPIRE_AFTER_MS, announcementQueue.getExpireAfterMs())
+                        .apply();
+            }
+            trace.record(FlightRecorder.CONFIGURED, announcementQueue.getStaleAfterMs(), announcementQueue.getExpireAfterMs());
+        } catch (Exception e) {
+            Log.e(TAG, "Error configuring announcement age limits: " + e.getMessage(), e);
+        }
+    }
+
     public void playPaymentNotification(String amount, String currency, String customerName, String transactionId, long timestamp) {
         try {
-            acquireWakeLock();
-            String audioText = currency + " " + amount + " received from " + (customerName != null ? customerName : "customer") + " on " + merchantBusiness;
-            playTtsOnly(audioText);
+            announcePayment(amount, currency, customerName, null, 0, System.currentTimeMillis(),
+                    PaymentPayload.notificationIdFor(transactionId));
             showLockScreenNotification(amount, currency, customerName, transactionId, timestamp);
         } catch (Exception e) {
             Log.e(TAG, "Error playing payment notification: " + e.getMessage(), e);
         }
     }
 
+    public void announcePayment(String amount, String currency, String customerName) {
+        announcePayment(amount, currency, customerName, null, 0, System.currentTimeMillis());
+    }
+
+    /**
+     * Queues a payment announcement.
+     * @param language A BCP 47 tag such as hi-IN selecting the engine language, or null for the default.
+     * @param sentAt The FCM send time used for end-to-end latency, or 0 if unknown.
+     * @param receivedAt The wall-clock time the payment was received.
+     */
+    public void announcePayment(String amount, String currency, String customerName, String language, long sentAt, long receivedAt) {
+        announcePayment(amount, currency, customerName, language, sentAt, receivedAt, 0);
+    }
+
+    /**
+     * Queues a payment announcement that the acknowledge action of its notification can cancel.
+     * @param notificationId The notification showing the payment, or 0 if it has none of its own.
+     */
+    public void announcePayment(String amount, String currency, String customerName, String language, long sentAt,
+                                long receivedAt, int notificationId) {
+        Announcement announcement = Announcement.payment(amount, currency, customerName);
+        announcement.setTiming(sentAt, receivedAt);
+        announcement.setLanguage(language);
+        announcement.setNotificationId(notificationId);
+        actor.submit(AudioActor.Command.speak(announcement));
+    }
+
     public void playTtsOnly(String text) {
+        playTtsOnly(text, null);
+    }
+
+    /** @param language A BCP 47 tag such as hi-IN, or null for the default language. */
+    public void playTtsOnly(String text, String language) {
+        Announcement announcement = Announcement.text(text);
+        announcement.setLanguage(language);
+        actor.submit(AudioActor.Command.speak(announcement));
+    }
+
+    /**
+     * Sets the languages whose engines are created as soon as the primary engine is ready,
+     * ahead of the most used languages, and persists them for later cold starts.
+     */
+    public void setWarmLanguages(List<String> languages) {
         try {
-            if (tts != null) {
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_ALARM)
-                        .build();
-                tts.setAudioAttributes(audioAttributes);
-                tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "payment_utterance_" + System.currentTimeMillis());
-                tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
-                    @Override
-                    public void onStart(String utteranceId) { Log.d(TAG, "TTS started for utterance: " + utteranceId); }
-                    @Override
-                    public void onDone(String utteranceId) { Log.d(TAG, "TTS completed for utterance: " + utteranceId); }
-                    @Override
-                    public void onError(String utteranceId) { Log.e(TAG, "TTS error for utterance: " + utteranceId); }
-                });
-            } else {
-                Log.w(TAG, "TTS not initialized, skipping audio");
+            warmLanguages = new ArrayList<>(languages);
+            if (context != null) {
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                        .putString(PREF_WARM_LANGUAGES, TextUtils.join(",", warmLanguages))
+                        .apply();
             }
+            actor.submit(AudioActor.Command.configure(() -> {
+                if (engineState == EngineState.READY) warmLanguageEngines();
+            }));
         } catch (Exception e) {
-            Log.e(TAG, "Error playing TTS: " + e.getMessage(), e);
+            Log.e(TAG, "Error setting warm languages: " + e.getMessage(), e);
         }
     }
 
-    private void acquireWakeLock() {
+    /**
+     * Selects how payment amounts are spoken and persists the choice for later cold starts.
+     * @param announcer {@link #ANNOUNCER_CLIPS} to play the amount from the app's prerecorded
+     *                  clip bank and speak only the sender through TTS, or {@link #ANNOUNCER_TTS}.
+     */
+    public void setAnnouncer(String announcer) {
         try {
-            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            if (pm != null) {
-                wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP | PowerManager.ON_AFTER_RELEASE, "PaymentNotification::WakeLock");
-                if (wakeLock != null) {
-                    wakeLock.acquire(10000);
-                    Log.d(TAG, "Wake lock acquired");
-                } else {
-                    Log.w(TAG, "Failed to create wake lock");
+            boolean clips = ANNOUNCER_CLIPS.equals(announcer);
+            this.announcer = clips ? ANNOUNCER_CLIPS : ANNOUNCER_TTS;
+            if (context != null) {
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                        .putString(PREF_ANNOUNCER, this.announcer)
+                        .apply();
+            }
+            actor.submit(AudioActor.Command.configure(() -> {
+                ClipPlayer player = clipPlayer;
+                if (clips && player == null && context != null) {
+                    clipPlayer = ClipPlayer.open(context, CLIP_BANK_LANGUAGE, clipListener);
+                    if (clipPlayer == null) Log.w(TAG, "No clip bank available, announcing through TTS");
+                } else if (!clips && player != null) {
+                    clipPlayer = null;
+                    player.release();
                 }
-            } else {
-                Log.w(TAG, "PowerManager service not available");
+            }));
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting announcer: " + e.getMessage(), e);
+        }
+    }
+
+    public String getAnnouncer() {
+        return announcer;
+    }
+
+    private void enqueue(Announcement announcement) {
+        try {
+            stopSynthesis();
+            int notificationId = announcement.getNotificationId();
+            // Batched payments all carry the summary's ID, which acknowledges them together.
+            if (notificationId != 0 && notificationId != PaymentNotificationScheduler.SUMMARY_NOTIFICATION_ID) {
+                acknowledgeIndex.put(notificationId, announcement);
             }
-        } catch (SecurityException e) {
-            Log.e(TAG, "Security exception acquiring wake lock: " + e.getMessage(), e);
+            if (engineState == EngineState.FAILED) {
+                scheduleRetry(announcement);
+                return;
+            }
+            if (engineState != EngineState.READY) {
+                // Held until onInit succeeds; stale announcements are dropped rather than spoken late.
+                announcement.setDeadline(System.currentTimeMillis() + PENDING_DEADLINE_MS);
+                bufferedBeforeReady++;
+            }
+            if (!announcementQueue.offer(announcement)) {
+                trace.record(FlightRecorder.ANNOUNCEMENT_DROPPED, announcementQueue.size());
+                return;
+            }
+            trace.record(FlightRecorder.ANNOUNCEMENT_QUEUED, announcement.getNotificationId(), announcementQueue.size());
+            dispatchNext();
         } catch (Exception e) {
-            Log.e(TAG, "Error acquiring wake lock: " + e.getMessage(), e);
+            Log.e(TAG, "Error queueing announcement: " + e.getMessage(), e);
         }
     }
 
-    private void showLockScreenNotification(String amount, String currency, String customerName, String transactionId, long timestamp) {
+    /** Hands the next queued announcement to the engine if nothing is currently being spoken. */
+    private void dispatchNext() {
         try {
-            NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-            if (nm != null) {
-                Intent intent = new Intent(context, Class.forName(context.getPackageName() + ".MainActivity"));
-                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                intent.putExtra("transactionId", transactionId);
-                PendingIntent pendingIntent = PendingIntent.getActivity(context, transactionId.hashCode(), intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-
-                NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                        .setSmallIcon(android.R.drawable.ic_dialog_alert)
-                        .setContentTitle("Payment Received")
-                        .setContentText(currency + " " + amount + " from " + (customerName != null ? customerName : "customer"))
-                        .setPriority(NotificationCompat.PRIORITY_MAX)
-                        .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                        .setCategory(NotificationCompat.CATEGORY_ALARM)
-                        .setFullScreenIntent(pendingIntent, true)
-                        .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Acknowledge", getAcknowledgeIntent(transactionId.hashCode()))
-                        .addAction(android.R.drawable.ic_menu_info_details, "View Details", pendingIntent)
-                        .setAutoCancel(false)
-                        .setWhen(timestamp)
-                        .setShowWhen(true);
-
-                nm.notify(transactionId.hashCode(), builder.build());
-                Log.d(TAG, "Lock screen notification shown with ID: " + transactionId.hashCode());
+            dispatchPending();
+            if (currentUtteranceId == null && announcementQueue.isEmpty()) startSynthesis();
+        } finally {
+            updateWakeLock();
+        }
+    }
+
+    private void dispatchPending() {
+        while (true) {
+            if (currentUtteranceId != null && System.currentTimeMillis() - currentStartedAt < MAX_UTTERANCE_MS) return;
+            currentUtteranceId = null;
+            if (tts == null || engineState != EngineState.READY) return;
+            Announcement next = announcementQueue.poll(System.currentTimeMillis());
+            if (next == null) return;
+            String utteranceId = UTTERANCE_PREFIX + (++utteranceCounter) + "_" + System.currentTimeMillis();
+            currentUtteranceId = utteranceId;
+            currentAnnouncement = next;
+            next.setUtteranceId(utteranceId);
+            trace.record(FlightRecorder.SPEECH_DISPATCHED, utteranceCounter, next.getPaymentCount());
+            currentSenderText = null;
+            speechStartedAt = 0;
+            currentStartedAt = System.currentTimeMillis();
+            if (playClips(next, utteranceId)) {
+                consecutiveSpeakFailures = 0;
+                return;
+            }
+            if (speakNow(AnnouncementText.forAnnouncement(next, getMerchantBusiness()), next.getLanguage(), utteranceId)) {
+                consecutiveSpeakFailures = 0;
+                return;
+            }
+            currentUtteranceId = null;
+            trace.record(FlightRecorder.SPEECH_REJECTED, utteranceCounter);
+            scheduleRetry(next);
+            if (++consecutiveSpeakFailures >= 3) {
+                // The engine keeps refusing utterances; start a new one.
+                consecutiveSpeakFailures = 0;
+                onEngineFailed(-1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plays a single payment's amount from the clip bank, leaving the sender to be spoken
+     * through TTS once the clips finish.
+     * @return false if the announcement must be spoken entirely through TTS.
+     */
+    private boolean playClips(Announcement announcement, String utteranceId) {
+        ClipPlayer player = clipPlayer;
+        if (player == null || !announcement.isPayment() || announcement.isSummary()) return false;
+        String language = announcement.getLanguage();
+        if (language != null && !Locale.forLanguageTag(language.replace('_', '-')).getLanguage().equals(CLIP_BANK_LANGUAGE)) return false;
+        long minor = Money.parseMinor(announcement.getAmount());
+        SpokenAmount.Unit unit = SpokenAmount.unitFor(announcement.getCurrency());
+        if (!Money.isValid(minor) || unit == null) return false;
+        currentSenderText = announcement.isShortened() ? null
+                : AnnouncementText.paymentSender(announcement.getSenderName(), getMerchantBusiness());
+        if (player.play(minor, unit, utteranceId)) return true;
+        currentSenderText = null;
+        clipFallbacks++;
+        return false;
+    }
+
+    private final ClipPlayer.Listener clipListener = new ClipPlayer.Listener() {
+        @Override
+        public void onClipsStarted(String utteranceId) {
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_STARTED, utteranceId));
+        }
+
+        @Override
+        public void onClipsDone(String utteranceId) {
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.CLIPS_DONE, utteranceId));
+        }
+
+        @Override
+        public void onClipsStopped(String utteranceId) {
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_STOPPED, utteranceId));
+        }
+    };
+
+    private void handleClipsDone(String utteranceId) {
+        String sender = utteranceId.equals(currentUtteranceId) ? currentSenderText : null;
+        currentSenderText = null;
+        if (sender == null) {
+            handleUtteranceDone(utteranceId);
+        } else if (!speakNow(sender, null, utteranceId + SENDER_SUFFIX)) {
+            handleUtteranceError(utteranceId);
+        }
+    }
+
+    private void recordSpeechStart(String utteranceId) {
+        if (utteranceId == null || !utteranceId.equals(currentUtteranceId)) return;
+        long now = System.currentTimeMillis();
+        speechStartedAt = now;
+        Announcement announcement = currentAnnouncement;
+        if (announcement != null && announcement.getReceivedAt() > 0) {
+            PaymentMetrics.get().receivedToSpeechStart.record(now - announcement.getReceivedAt());
+        }
+    }
+
+    private void recordSpeechDone(String utteranceId) {
+        if (utteranceId == null || !utteranceId.equals(currentUtteranceId)) return;
+        Announcement announcement = currentAnnouncement;
+        if (announcement == null || !announcement.isPayment()) return;
+        long now = System.currentTimeMillis();
+        if (speechStartedAt > 0) {
+            PaymentMetrics.get().speechDuration.record(now - speechStartedAt);
+        }
+        if (announcement.getSentAt() > 0) {
+            PaymentMetrics.get().endToEnd.record(now - announcement.getSentAt());
+        }
+    }
+
+    private void emitState(String state, String utteranceId) {
+        Announcement announcement = utteranceId != null && utteranceId.equals(currentUtteranceId) ? currentAnnouncement : null;
+        PaymentEventEmitter.get().emitAnnouncementState(state, utteranceId, announcement, announcementQueue.size());
+    }
+
+    /** Holds one wake lock reference while anything is queued or playing. */
+    private void updateWakeLock() {
+        if (context == null) return;
+        WakeLockManager wakeLocks = WakeLockManager.getInstance(context);
+        // A safety timeout drops every reference, including ours; take a new one if still busy.
+        if (holdsWakeLock && wakeLocks.getSafetyTimeouts() != wakeLockTimeouts) holdsWakeLock = false;
+        boolean active = currentUtteranceId != null || !announcementQueue.isEmpty();
+        if (active == holdsWakeLock) {
+            if (active) wakeLocks.extend();
+            return;
+        }
+        holdsWakeLock = active;
+        if (active) {
+            wakeLockTimeouts = wakeLocks.getSafetyTimeouts();
+            wakeLocks.acquire();
+        } else {
+            wakeLocks.release();
+        }
+    }
+
+    private void onUtteranceFinished(String utteranceId) {
+        if (utteranceId == null || !utteranceId.equals(currentUtteranceId)) return;
+        currentUtteranceId = null;
+        if (enginePool != null) enginePool.setSpeaking(null);
+        dispatchNext();
+    }
+
+    /** Drops the index entry of an announcement that was spoken and cannot be acknowledged any more. */
+    private void forgetNotification(Announcement announcement) {
+        if (announcement == null || announcement.getNotificationId() == 0) return;
+        if (acknowledgeIndex.get(announcement.getNotificationId()) == announcement) {
+            acknowledgeIndex.remove(announcement.getNotificationId());
+        }
+    }
+
+    /**
+     * Cancels the announcement of one acknowledged payment: a queued one is skipped when the
+     * queue reaches it, a playing one is stopped and the next announcement starts. A summary
+     * is only cancelled once all of its payments have been acknowledged.
+     */
+    private void acknowledgeNotification(int notificationId) {
+        if (notificationId == PaymentNotificationScheduler.SUMMARY_NOTIFICATION_ID) {
+            stopAll();
+            return;
+        }
+        Announcement entry = acknowledgeIndex.remove(notificationId);
+        // Absent once spoken, or if announced without a notification.
+        Announcement live = entry != null ? entry.resolve() : null;
+        boolean cancelled = live != null && live.acknowledgePayment();
+        trace.record(FlightRecorder.ACKNOWLEDGED, notificationId, cancelled ? 1 : 0);
+        if (!cancelled) return;
+        acknowledged++;
+        String utteranceId = live.getUtteranceId();
+        if (utteranceId != null && utteranceId.equals(currentUtteranceId)) {
+            stopCurrent();
+        }
+    }
+
+    /** Stops the utterance in flight only, then moves on to the next queued announcement. */
+    private void stopCurrent() {
+        try {
+            currentUtteranceId = null;
+            currentSenderText = null;
+            ClipPlayer player = clipPlayer;
+            if (player != null) {
+                player.stop();
+            }
+            if (tts != null) {
+                tts.stop();
+            }
+            if (enginePool != null) {
+                enginePool.stopAll();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping acknowledged announcement: " + e.getMessage(), e);
+        }
+        dispatchNext();
+    }
+
+    /** @return The number of the utterance in flight if it is the given one, else -1. */
+    private long utteranceNumber(String utteranceId) {
+        return utteranceId != null && utteranceId.equals(currentUtteranceId) ? utteranceCounter : -1;
+    }
+
+    private void handleUtteranceStarted(String utteranceId) {
+        if (timeToFirstAudioMs < 0 && utteranceId != null && utteranceId.startsWith(UTTERANCE_PREFIX)) {
+            timeToFirstAudioMs = SystemClock.elapsedRealtime() - createdAt;
+        }
+        long number = utteranceNumber(utteranceId);
+        trace.record(FlightRecorder.SPEECH_STARTED, number, number >= 0 ? System.currentTimeMillis() - currentStartedAt : -1);
+        recordSpeechStart(utteranceId);
+        emitState("started", utteranceId);
+    }
+
+    private void handleUtteranceDone(String utteranceId) {
+        long number = utteranceNumber(utteranceId);
+        trace.record(FlightRecorder.SPEECH_DONE, number,
+                number >= 0 && speechStartedAt > 0 ? System.currentTimeMillis() - speechStartedAt : -1);
+        recordSpeechDone(utteranceId);
+        emitState("done", utteranceId);
+        if (utteranceId != null && utteranceId.equals(currentUtteranceId)) forgetNotification(currentAnnouncement);
+        onUtteranceFinished(utteranceId);
+    }
+
+    private void handleUtteranceError(String utteranceId) {
+        trace.record(FlightRecorder.SPEECH_ERROR, utteranceNumber(utteranceId));
+        emitState("error", utteranceId);
+        if (utteranceId != null && utteranceId.equals(currentUtteranceId) && currentAnnouncement != null) {
+            scheduleRetry(currentAnnouncement);
+        }
+        onUtteranceFinished(utteranceId);
+    }
+
+    private void handleUtteranceStopped(String utteranceId) {
+        trace.record(FlightRecorder.SPEECH_STOPPED, utteranceNumber(utteranceId));
+        emitState("stopped", utteranceId);
+        if (utteranceId != null && utteranceId.equals(currentUtteranceId)) {
+            currentUtteranceId = null;
+            if (enginePool != null) enginePool.setSpeaking(null);
+            forgetNotification(currentAnnouncement);
+        }
+        updateWakeLock();
+    }
+
+    /**
+     * Keeps a failed announcement for another attempt once the engine is healthy. The retry
+     * timer runs on the actor thread and holds no wake lock; if the device sleeps through it,
+     * the retry happens on the next wake-up or engine start.
+     */
+    private void scheduleRetry(Announcement announcement) {
+        if (retryQueue == null || announcement.isCancelled()) return;
+        boolean scheduled = retryQueue.add(announcement, System.currentTimeMillis());
+        trace.record(FlightRecorder.RETRY_SCHEDULED, announcement.getAttempts(), scheduled ? 1 : 0);
+        if (scheduled) armRetry();
+    }
+
+    private void armRetry() {
+        actor.getHandler().removeCallbacks(retryDue);
+        if (retryQueue == null || engineState != EngineState.READY) return;
+        long next = retryQueue.nextDueAt();
+        if (next < 0) return;
+        actor.getHandler().postDelayed(retryDue, Math.max(0, next - System.currentTimeMillis()));
+    }
+
+    private void retryDue() {
+        if (retryQueue == null || engineState != EngineState.READY) return;
+        List<Announcement> due = retryQueue.takeDue(System.currentTimeMillis());
+        for (Announcement announcement : due) {
+            if (announcement.isCancelled()) continue;
+            // The queue recomputes the deadline from the payment's origin.
+            announcement.setDeadline(0);
+            if (!announcementQueue.offer(announcement)) {
+                trace.record(FlightRecorder.ANNOUNCEMENT_DROPPED, announcementQueue.size());
+            }
+        }
+        if (!due.isEmpty()) {
+            trace.record(FlightRecorder.RETRY_DUE, due.size());
+            dispatchNext();
+        }
+        armRetry();
+    }
+
+    private boolean speakNow(String text, String language, String utteranceId) {
+        try {
+            TextToSpeech engine = tts;
+            String locale = engineLocale;
+            String voice = engineVoice;
+            TtsEnginePool.Engine pooled = pooledEngineFor(language);
+            if (pooled != null) {
+                engine = pooled.getTts();
+                locale = pooled.getLocaleTag();
+                voice = pooled.getVoiceName();
+            }
+            if (engine == null) return false;
+            if (enginePool != null) enginePool.setSpeaking(pooled);
+            AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_ALARM)
+                    .build();
+            engine.setAudioAttributes(audioAttributes);
+            String cacheKey = TtsSynthesisCache.keyFor(text, locale, voice);
+            File cached = synthesisCache != null ? synthesisCache.get(cacheKey) : null;
+            int result;
+            if (cached != null) {
+                // The engine plays registered sound files in place of synthesizing the token.
+                String token = CACHED_SPEECH_PREFIX + cacheKey;
+                engine.addSpeech(token, cached);
+                result = engine.speak(token, TextToSpeech.QUEUE_ADD, null, utteranceId);
             } else {
-                Log.w(TAG, "NotificationManager not available");
+                result = engine.speak(text, TextToSpeech.QUEUE_ADD, null, utteranceId);
+                if (result == TextToSpeech.SUCCESS && synthesisCache != null) {
+                    deferredSynthesisEngine = engine;
+                    deferredSynthesisText = text;
+                    deferredSynthesisKey = cacheKey;
+                }
             }
-        } catch (ClassNotFoundException e) {
-            Log.e(TAG, "MainActivity class not found: " + e.getMessage(), e);
-        } catch (SecurityException e) {
-            Log.e(TAG, "Security exception showing notification: " + e.getMessage(), e);
+            return result == TextToSpeech.SUCCESS;
         } catch (Exception e) {
-            Log.e(TAG, "Error showing lock screen notification: " + e.getMessage(), e);
+            Log.e(TAG, "Error playing TTS: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /** Synthesizes the last uncached text into the cache; only called while the engines are idle. */
+    private void startSynthesis() {
+        TextToSpeech engine = deferredSynthesisEngine;
+        String text = deferredSynthesisText;
+        String cacheKey = deferredSynthesisKey;
+        deferredSynthesisEngine = null;
+        deferredSynthesisText = null;
+        deferredSynthesisKey = null;
+        if (engine == null || synthesisCache == null || synthesisKey != null) return;
+        try {
+            File target = synthesisCache.beginWrite(cacheKey);
+            if (target != null) {
+                synthesisEngine = engine;
+                synthesisKey = cacheKey;
+                if (engine.synthesizeToFile(text, null, target, SYNTH_PREFIX + cacheKey) != TextToSpeech.SUCCESS) {
+                    synthesisKey = null;
+                    synthesisCache.abort(cacheKey);
+                }
+            }
+        } catch (Exception e) {
+            synthesisKey = null;
+            synthesisCache.abort(cacheKey);
+            Log.e(TAG, "Error caching synthesized announcement: " + e.getMessage(), e);
         }
     }
 
-    private PendingIntent getAcknowledgeIntent(int notificationId) {
+    /** Stops a cache synthesis still running, so it does not hold up the next announcement. */
+    private void stopSynthesis() {
+        String cacheKey = synthesisKey;
+        TextToSpeech engine = synthesisEngine;
+        synthesisEngine = null;
+        if (cacheKey == null || engine == null) return;
+        synthesisKey = null;
         try {
-            Intent ackIntent = new Intent(context, AcknowledgeReceiver.class);
-            ackIntent.putExtra("notificationId", notificationId);
-            return PendingIntent.getBroadcast(context, notificationId, ackIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+            engine.stop();
         } catch (Exception e) {
-            Log.e(TAG, "Error creating acknowledge intent: " + e.getMessage(), e);
+            Log.e(TAG, "Error stopping synthesis: " + e.getMessage(), e);
+        }
+        synthesisCache.abort(cacheKey);
+    }
+
+    private void onSynthesisEnded(String utteranceId, boolean done) {
+        String cacheKey = utteranceId.substring(SYNTH_PREFIX.length());
+        if (cacheKey.equals(synthesisKey)) synthesisKey = null;
+        if (synthesisCache == null) return;
+        if (done) {
+            synthesisCache.commit(cacheKey);
+        } else {
+            synthesisCache.abort(cacheKey);
+        }
+    }
+
+    /**
+     * @return The pooled engine for a language other than the primary engine's, or null to use
+     *         the primary engine. Falls back to the primary engine while a pooled engine is
+     *         still initializing or if the language is not installed.
+     */
+    private TtsEnginePool.Engine pooledEngineFor(String language) {
+        if (language == null || enginePool == null) return null;
+        String primary = engineLocale;
+        String requested = Locale.forLanguageTag(language.replace('_', '-')).getLanguage();
+        if (requested.isEmpty() || requested.equals(Locale.forLanguageTag(primary).getLanguage())) return null;
+        TtsEnginePool.Engine engine = enginePool.acquire(language);
+        if (engine.getState() != TtsEnginePool.State.READY || engine.getTts() == null) {
+            languageFallbacks++;
             return null;
         }
+        return engine;
     }
 
+    private void warmLanguageEngines() {
+        if (enginePool == null) return;
+        List<String> languages = new ArrayList<>(warmLanguages);
+        for (String language : enginePool.getTopLanguages(MAX_WARM_LANGUAGES)) {
+            if (!languages.contains(language)) languages.add(language);
+        }
+        String primary = Locale.forLanguageTag(engineLocale).getLanguage();
+        List<String> toWarm = new ArrayList<>();
+        for (String language : languages) {
+            if (toWarm.size() >= MAX_WARM_LANGUAGES) break;
+            if (!Locale.forLanguageTag(language).getLanguage().equals(primary)) toWarm.add(language);
+        }
+        if (!toWarm.isEmpty()) {
+            enginePool.warm(toWarm);
+        }
+    }
+
+    private static List<String> splitLanguages(String joined) {
+        List<String> languages = new ArrayList<>();
+        for (String language : joined.split(",")) {
+            if (!language.trim().isEmpty()) languages.add(language.trim());
+        }
+        return languages;
+    }
+
+    public TtsEnginePool getEnginePool() {
+        return enginePool;
+    }
+
+    public long getLanguageFallbacks() {
+        return languageFallbacks;
+    }
+
+    public ClipPlayer getClipPlayer() {
+        return clipPlayer;
+    }
+
+    /** @return Clip announcements spoken through TTS because the bank lacked a word or was busy. */
+    public long getClipFallbacks() {
+        return clipFallbacks;
+    }
+
+    public TtsSynthesisCache getSynthesisCache() {
+        return synthesisCache;
+    }
+
+    public AnnouncementQueue getAnnouncementQueue() {
+        return announcementQueue;
+    }
+
+    public AnnouncementRetryQueue getRetryQueue() {
+        return retryQueue;
+    }
+
+    /** @return Announcements cancelled, queued or playing, because their notification was acknowledged. */
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /** Forwards engine callbacks, which arrive on binder threads, to the actor. */
+    private class UtteranceListener extends UtteranceProgressListener {
+        @Override
+        public void onStart(String utteranceId) {
+            // The sender part of a clip announcement continues an utterance that already started.
+            if (utteranceId != null && utteranceId.endsWith(SENDER_SUFFIX)) return;
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_STARTED, utteranceId));
+        }
+
+        @Override
+        public void onDone(String utteranceId) {
+            if (utteranceId != null && utteranceId.startsWith(SYNTH_PREFIX)) {
+                onSynthesisEnded(utteranceId, true);
+                return;
+            }
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_DONE, stripSenderSuffix(utteranceId)));
+        }
+
+        @Override
+        public void onError(String utteranceId) {
+            if (utteranceId != null && utteranceId.startsWith(SYNTH_PREFIX)) {
+                onSynthesisEnded(utteranceId, false);
+                return;
+            }
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_ERROR, stripSenderSuffix(utteranceId)));
+        }
+
+        @Override
+        public void onStop(String utteranceId, boolean interrupted) {
+            if (utteranceId != null && utteranceId.startsWith(SYNTH_PREFIX)) {
+                onSynthesisEnded(utteranceId, false);
+                return;
+            }
+            actor.submit(AudioActor.Command.utterance(AudioActor.Type.UTTERANCE_STOPPED, stripSenderSuffix(utteranceId)));
+        }
+    }
+
+    private static String stripSenderSuffix(String utteranceId) {
+        return utteranceId != null && utteranceId.endsWith(SENDER_SUFFIX)
+                ? utteranceId.substring(0, utteranceId.length() - SENDER_SUFFIX.length())
+                : utteranceId;
+    }
+
+    private void showLockScreenNotification(String amount, String currency, String customerName, String transactionId, long timestamp) {
+        try {
+            int notificationId = PaymentPayload.notificationIdFor(transactionId);
+            NotificationFactory factory = NotificationFactory.getInstance(context);
+            boolean ownPost = PaymentNotificationScheduler.getInstance(context).postPayment(notificationId,
+                    () -> factory.buildLockScreen(notificationId, amount, currency, customerName, transactionId, timestamp),
+                    amount, currency, customerName);
+            trace.record(FlightRecorder.NOTIFICATION_POSTED, notificationId, ownPost ? 1 : 0);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Security exception showing notification: " + e.getMessage(), e);
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing lock screen notification: " + e.getMessage(), e);
+        }
+    }
+
+    /** Releases the engines once the commands already submitted have run. Later commands are dropped. */
     public void cleanup() {
+        actor.submit(AudioActor.Command.shutdown());
+    }
+
+    private void shutdownEngines() {
         try {
+            actor.getHandler().removeCallbacks(reinitialize);
+            actor.getHandler().removeCallbacks(retryDue);
+            engineState = EngineState.FAILED;
+            reinitAttempts = MAX_REINIT_ATTEMPTS;
+            keepUnspoken();
+            currentUtteranceId = null;
+            currentSenderText = null;
+            stopSynthesis();
+            deferredSynthesisEngine = null;
             if (tts != null) {
                 tts.stop();
                 tts.shutdown();
                 tts = null;
-                Log.d(TAG, "TTS cleaned up");
             }
-            if (wakeLock != null && wakeLock.isHeld()) {
-                wakeLock.release();
-                wakeLock = null;
-                Log.d(TAG, "Wake lock released");
+            if (enginePool != null) {
+                enginePool.shutdown();
+            }
+            ClipPlayer player = clipPlayer;
+            if (player != null) {
+                clipPlayer = null;
+                player.release();
             }
+            updateWakeLock();
         } catch (Exception e) {
             Log.e(TAG, "Error during cleanup: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Moves the announcement in flight and everything still queued, including what was
+     * buffered before the engine became ready, into the persistent retry queue so that the
+     * next instance speaks them instead of losing them with this one.
+     */
+    private void keepUnspoken() {
+        if (retryQueue == null) {
+            announcementQueue.clear();
+            return;
+        }
+        List<Announcement> unspoken = new ArrayList<>(announcementQueue.size() + 1);
+        if (currentUtteranceId != null && currentAnnouncement != null && !currentAnnouncement.isCancelled()) {
+            unspoken.add(currentAnnouncement);
+        }
+        Announcement pending;
+        while ((pending = announcementQueue.poll()) != null) {
+            if (!pending.isCancelled()) unspoken.add(pending);
+        }
+        retryQueue.addAll(unspoken, System.currentTimeMillis());
+    }
+
+    /** Room for a full announcement queue plus the one in flight, so a shutdown loses none of them. */
+    private int retryCapacity() {
+        return Math.max(AnnouncementRetryQueue.DEFAULT_CAPACITY, announcementQueue.getMaxDepth() + 1);
+    }
+
     public String getMerchantBusiness() {
         return merchantBusiness != null ? merchantBusiness : "Your Business";
     }
 
     public void stopTts() {
+        actor.submit(AudioActor.Command.stop());
+    }
+
+    /**
+     * Handles the acknowledge action of a payment notification: only that payment's own
+     * announcement is cancelled, whether it is queued or playing.
+     * @param notificationId The acknowledged notification.
+     */
+    public void acknowledge(int notificationId) {
+        actor.submit(AudioActor.Command.acknowledge(notificationId));
+    }
+
+    /** Acknowledges every payment: stops speech and drops all queued and retried announcements. */
+    public void acknowledgeAll() {
+        actor.submit(AudioActor.Command.acknowledgeAll());
+    }
+
+    private void stopAll() {
         try {
+            int cleared = announcementQueue.clear();
+            if (retryQueue != null) {
+                cleared += retryQueue.clear();
+                actor.getHandler().removeCallbacks(retryDue);
+            }
+            acknowledgeIndex.clear();
+            currentUtteranceId = null;
+            currentSenderText = null;
+            updateWakeLock();
+            ClipPlayer player = clipPlayer;
+            if (player != null) {
+                player.stop();
+            }
             if (tts != null && tts.isSpeaking()) {
                 tts.stop();
-                Log.d(TAG, "TTS stopped");
+            }
+            trace.record(FlightRecorder.STOPPED_ALL, cleared);
+            if (enginePool != null) {
+                enginePool.stopAll();
             }
         } catch (Exception e) {
             Log.e(TAG, "Error stopping TTS: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
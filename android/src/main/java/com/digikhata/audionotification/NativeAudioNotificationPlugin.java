@@ -1,5 +1,6 @@
 package com.digikhata.audionotification;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
@@ -12,12 +13,24 @@ public class NativeAudioNotificationPlugin extends Plugin {
     private static final String TAG = "NativeAudioNotificationPlugin";
     private NativeAudioNotification implementation;
 
+    private final PaymentEventEmitter.Listener eventListener = new PaymentEventEmitter.Listener() {
+        @Override
+        public boolean hasListeners(String eventName) {
+            return NativeAudioNotificationPlugin.this.hasListeners(eventName);
+        }
+
+        @Override
+        public void notifyListeners(String eventName, JSObject data) {
+            NativeAudioNotificationPlugin.this.notifyListeners(eventName, data);
+        }
+    };
+
     @Override
     public void load() {
         try {
-            NativeAudioNotification.destroyInstance();
-            NativeAudioNotification.getInstance(getContext());
-            implementation = NativeAudioNotification.getInstance(getContext()); // Use singleton
+            // The engine is process-wide and may already hold payments buffered by the messaging service.
+            implementation = NativeAudioNotification.getInstance(getContext());
+            PaymentEventEmitter.get().attach(eventListener);
         } catch (Exception e) {
             Log.e(TAG, "Error loading plugin: " + e.getMessage(), e);
         }
@@ -26,6 +39,35 @@ public class NativeAudioNotificationPlugin extends Plugin {
     @PluginMethod
     public void configure(PluginCall call) {
         try {
+            Integer queueDepth = call.getInt("queueDepth");
+            Integer coalesceThreshold = call.getInt("coalesceThreshold");
+            if (implementation != null && (queueDepth != null || coalesceThreshold != null)) {
+                AnnouncementQueue queue = implementation.getAnnouncementQueue();
+                implementation.configureQueue(
+                        queueDepth != null ? queueDepth : queue.getMaxDepth(),
+                        coalesceThreshold != null ? coalesceThreshold : queue.getCoalesceThreshold());
+            }
+            Long staleAfterMs = call.getLong("staleAfterMs");
+            Long expireAfterMs = call.getLong("expireAfterMs");
+            if (implementation != null && (staleAfterMs != null || expireAfterMs != null)) {
+                AnnouncementQueue queue = implementation.getAnnouncementQueue();
+                implementation.configureAgeLimits(
+                        staleAfterMs != null ? staleAfterMs : queue.getStaleAfterMs(),
+                        expireAfterMs != null ? expireAfterMs : queue.getExpireAfterMs());
+            }
+            JSArray languages = call.getArray("languages");
+            if (implementation != null && languages != null) {
+                implementation.setWarmLanguages(languages.<String>toList());
+            }
+            String announcer = call.getString("announcer");
+            if (implementation != null && announcer != null) {
+                implementation.setAnnouncer(announcer);
+            }
+            if (call.getData().has("tokenEndpoint")) {
+                String tokenEndpoint = call.getString("tokenEndpoint");
+                PaymentMessagingService.setTokenEndpoint(getContext(),
+                        tokenEndpoint != null && !tokenEndpoint.isEmpty() ? tokenEndpoint : null);
+            }
             call.resolve();
         } catch (Exception e) {
             Log.e(TAG, "Error in configure: " + e.getMessage(), e);
@@ -37,21 +79,22 @@ public class NativeAudioNotificationPlugin extends Plugin {
     public void testNotification(PluginCall call) {
         try {
             String amountStr = call.getString("amount");
-            double amount = Double.parseDouble(amountStr != null ? amountStr : "0");
+            long amountMinor = Money.parseMinor(amountStr != null ? amountStr : "0");
+            if (!Money.isValid(amountMinor)) {
+                call.reject("Invalid data format: amount must be a decimal number with at most two fraction digits");
+                return;
+            }
             String currency = call.getString("currency", "Rs.");
             String customerName = call.getString("customerName");
             String transactionId = call.getString("transactionId", "");
             long timestamp = call.getLong("timestamp", System.currentTimeMillis());
 
             if (implementation != null) {
-                implementation.playPaymentNotification(String.valueOf(amount), currency, customerName, transactionId, timestamp);
+                implementation.playPaymentNotification(Money.toPlainString(amountMinor), currency, customerName, transactionId, timestamp);
                 call.resolve();
             } else {
                 call.reject("Implementation not initialized");
             }
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "Invalid number format in testNotification: " + e.getMessage(), e);
-            call.reject("Invalid data format: " + e.getMessage());
         } catch (Exception e) {
             Log.e(TAG, "Error in testNotification: " + e.getMessage(), e);
             call.reject("Test notification failed: " + e.getMessage());
@@ -93,8 +136,9 @@ public class NativeAudioNotificationPlugin extends Plugin {
     public void playTts(PluginCall call) {
         try {
             String text = call.getString("text", "Test audio message");
+            String lang = call.getString("lang");
             if (implementation != null) {
-                implementation.playTtsOnly(text);
+                implementation.playTtsOnly(text, lang);
                 call.resolve();
             } else {
                 call.reject("Implementation not initialized");
@@ -120,14 +164,294 @@ public class NativeAudioNotificationPlugin extends Plugin {
         }
     }
 
-    @Override
-    protected void handleOnDestroy() {
+    @PluginMethod
+    public void acknowledgeAll(PluginCall call) {
         try {
             if (implementation != null) {
-                implementation.cleanup();
-                implementation = null;
+                implementation.acknowledgeAll();
+                PaymentNotificationScheduler.getInstance(getContext()).acknowledgeAll();
+                call.resolve();
+            } else {
+                call.reject("Implementation not initialized");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error in acknowledgeAll: " + e.getMessage(), e);
+            call.reject("Acknowledge all failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        try {
+            if (implementation != null) {
+                JSObject ret = new JSObject();
+                TtsSynthesisCache cache = implementation.getSynthesisCache();
+                if (cache != null) {
+                    JSObject cacheStats = new JSObject();
+                    cacheStats.put("hits", cache.getHits());
+                    cacheStats.put("misses", cache.getMisses());
+                    cacheStats.put("writes", cache.getWrites());
+                    cacheStats.put("evictions", cache.getEvictions());
+                    cacheStats.put("entries", cache.getEntryCount());
+                    cacheStats.put("bytes", cache.getTotalBytes());
+                    cacheStats.put("maxBytes", cache.getMaxBytes());
+                    ret.put("synthesisCache", cacheStats);
+                }
+                JSObject engineStats = new JSObject();
+                engineStats.put("state", implementation.getEngineState().name());
+                engineStats.put("initDurationMs", implementation.getInitDurationMs());
+                engineStats.put("timeToFirstAudioMs", implementation.getTimeToFirstAudioMs());
+                engineStats.put("bufferedBeforeReady", implementation.getBufferedBeforeReady());
+                engineStats.put("reinitializations", implementation.getReinitializations());
+                TtsEnginePool pool = implementation.getEnginePool();
+                if (pool != null) {
+                    engineStats.put("languageEngines", pool.getSize());
+                    engineStats.put("languageEnginesCreated", pool.getCreated());
+                    engineStats.put("languageEngineEvictions", pool.getEvictions());
+                }
+                engineStats.put("languageFallbacks", implementation.getLanguageFallbacks());
+                engineStats.put("announcer", implementation.getAnnouncer());
+                ClipPlayer clips = implementation.getClipPlayer();
+                engineStats.put("clipAnnouncements", clips != null ? clips.getPlayed() : 0);
+                engineStats.put("clipFallbacks", implementation.getClipFallbacks());
+                AudioActor actor = implementation.getActor();
+                engineStats.put("commandsSubmitted", actor.getSubmitted());
+                engineStats.put("commandsPending", actor.getPending());
+                engineStats.put("commandsRejected", actor.getRejected());
+                ret.put("engine", engineStats);
+                AnnouncementQueue queue = implementation.getAnnouncementQueue();
+                JSObject queueStats = new JSObject();
+                queueStats.put("pending", queue.size());
+                queueStats.put("maxDepth", queue.getMaxDepth());
+                queueStats.put("coalesceThreshold", queue.getCoalesceThreshold());
+                queueStats.put("enqueued", queue.getEnqueued());
+                queueStats.put("coalesced", queue.getCoalesced());
+                queueStats.put("dropped", queue.getDropped());
+                queueStats.put("expired", queue.getExpired());
+                queueStats.put("preempted", queue.getPreempted());
+                queueStats.put("shortened", queue.getShortened());
+                queueStats.put("acknowledged", implementation.getAcknowledged());
+                queueStats.put("staleAfterMs", queue.getStaleAfterMs());
+                queueStats.put("expireAfterMs", queue.getExpireAfterMs());
+                ret.put("announcementQueue", queueStats);
+                AnnouncementRetryQueue retries = implementation.getRetryQueue();
+                if (retries != null) {
+                    JSObject retryStats = new JSObject();
+                    retryStats.put("pending", retries.size());
+                    retryStats.put("scheduled", retries.getScheduled());
+                    retryStats.put("retried", retries.getRetried());
+                    retryStats.put("abandoned", retries.getAbandoned());
+                    retryStats.put("maxAgeMs", retries.getMaxAgeMs());
+                    ret.put("retry", retryStats);
+                }
+                PaymentDedupIndex dedup = PaymentMessagingService.getDedupIndex(getContext());
+                JSObject dedupStats = new JSObject();
+                dedupStats.put("lookups", dedup.getLookups());
+                dedupStats.put("duplicates", dedup.getDuplicates());
+                dedupStats.put("bloomNegatives", dedup.getBloomNegatives());
+                dedupStats.put("bloomFalsePositives", dedup.getBloomFalsePositives());
+                dedupStats.put("entries", dedup.getEntryCount());
+                dedupStats.put("capacity", dedup.getCapacity());
+                dedupStats.put("memoryBytes", dedup.getMemoryBytes());
+                ret.put("dedup", dedupStats);
+                PaymentJournal journal = PaymentMessagingService.getJournal(getContext());
+                JSObject journalStats = new JSObject();
+                journalStats.put("entries", journal.getEntryCount());
+                journalStats.put("segments", journal.getSegmentCount());
+                journalStats.put("appends", journal.getAppends());
+                journalStats.put("writeErrors", journal.getWriteErrors());
+                journalStats.put("truncatedBytes", journal.getTruncatedBytes());
+                ret.put("journal", journalStats);
+                TokenSync tokens = PaymentMessagingService.getTokenSync(getContext());
+                JSObject tokenStats = new JSObject();
+                tokenStats.put("registered", tokens.getRegisteredToken() != null);
+                tokenStats.put("pending", tokens.getPendingToken() != null);
+                tokenStats.put("requested", tokens.getRequested());
+                tokenStats.put("skipped", tokens.getSkipped());
+                tokenStats.put("coalesced", tokens.getCoalesced());
+                tokenStats.put("uploads", tokens.getUploads());
+                tokenStats.put("failures", tokens.getFailures());
+                tokenStats.put("rejected", tokens.getRejected());
+                ret.put("tokenSync", tokenStats);
+                PaymentEventEmitter events = PaymentEventEmitter.get();
+                JSObject eventStats = new JSObject();
+                eventStats.put("emitted", events.getEmitted());
+                eventStats.put("batches", events.getBatches());
+                eventStats.put("dropped", events.getDropped());
+                ret.put("events", eventStats);
+                WakeLockManager wakeLocks = WakeLockManager.getInstance(getContext());
+                JSObject wakeLockStats = new JSObject();
+                wakeLockStats.put("held", wakeLocks.isHeld());
+                wakeLockStats.put("references", wakeLocks.getReferences());
+                wakeLockStats.put("acquisitions", wakeLocks.getAcquisitions());
+                wakeLockStats.put("requests", wakeLocks.getRequests());
+                wakeLockStats.put("totalHeldMs", wakeLocks.getTotalHeldMs());
+                wakeLockStats.put("longestHoldMs", wakeLocks.getLongestHoldMs());
+                wakeLockStats.put("safetyTimeouts", wakeLocks.getSafetyTimeouts());
+                ret.put("wakeLock", wakeLockStats);
+
+                PaymentNotificationScheduler notifications = PaymentNotificationScheduler.getInstance(getContext());
+                JSObject notificationStats = new JSObject();
+                notificationStats.put("posted", notifications.getPosted());
+                notificationStats.put("summaryUpdates", notifications.getSummaryUpdates());
+                notificationStats.put("coalesced", notifications.getCoalesced());
+                notificationStats.put("suppressed", notifications.getSuppressed());
+                notificationStats.put("groupSize", notifications.getGroupSize());
+                ret.put("notifications", notificationStats);
+                call.resolve(ret);
+            } else {
+                call.reject("Implementation not initialized");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error in getStats: " + e.getMessage(), e);
+            call.reject("Get stats failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        try {
+            boolean reset = call.getBoolean("reset", false);
+            PaymentMetrics metrics = PaymentMetrics.get();
+            JSObject histograms = new JSObject();
+            for (LatencyHistogram histogram : metrics.all()) {
+                JSObject stats = new JSObject();
+                stats.put("count", histogram.getCount());
+                stats.put("min", histogram.getMin());
+                stats.put("max", histogram.getMax());
+                stats.put("mean", histogram.getMean());
+                stats.put("p50", histogram.getPercentile(50));
+                stats.put("p90", histogram.getPercentile(90));
+                stats.put("p99", histogram.getPercentile(99));
+                histograms.put(histogram.getName(), stats);
+            }
+            JSObject ret = new JSObject();
+            ret.put("since", metrics.getSince());
+            ret.put("histograms", histograms);
+            if (reset) {
+                metrics.reset();
+            }
+            call.resolve(ret);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in getMetrics: " + e.getMessage(), e);
+            call.reject("Get metrics failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void dumpTrace(PluginCall call) {
+        try {
+            int limit = call.getInt("limit", 0);
+            boolean clear = call.getBoolean("clear", false);
+            FlightRecorder recorder = FlightRecorder.get();
+            JSArray events = new JSArray();
+            for (String line : recorder.dump(limit)) {
+                events.put(line);
+            }
+            JSObject ret = new JSObject();
+            ret.put("events", events);
+            ret.put("recorded", recorder.getRecorded());
+            ret.put("capacity", recorder.getCapacity());
+            if (clear) {
+                recorder.clear();
+            }
+            call.resolve(ret);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in dumpTrace: " + e.getMessage(), e);
+            call.reject("Dump trace failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getRecentPayments(PluginCall call) {
+        try {
+            long since = call.getLong("since", 0L);
+            long until = call.getLong("until", Long.MAX_VALUE);
+            long cursor = call.getLong("cursor", -1L);
+            int limit = call.getInt("limit", 50);
+            PaymentJournal.Page page = PaymentMessagingService.getJournal(getContext()).query(since, until, cursor, limit);
+            JSArray payments = new JSArray();
+            for (PaymentJournal.Entry entry : page.entries) {
+                JSObject payment = new JSObject();
+                payment.put("sequence", entry.sequence);
+                payment.put("receivedAt", entry.receivedAt);
+                payment.put("sentAt", entry.sentAt);
+                payment.put("transactionId", entry.transactionId);
+                payment.put("amount", entry.amount);
+                payment.put("currency", entry.currency);
+                payment.put("senderName", entry.senderName);
+                payments.put(payment);
             }
-            NativeAudioNotification.destroyInstance();
+            JSObject ret = new JSObject();
+            ret.put("payments", payments);
+            if (page.nextCursor >= 0) {
+                ret.put("nextCursor", page.nextCursor);
+            }
+            call.resolve(ret);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in getRecentPayments: " + e.getMessage(), e);
+            call.reject("Get recent payments failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getTotals(PluginCall call) {
+        try {
+            int senderLimit = call.getInt("senderLimit", 10);
+            boolean speak = call.getBoolean("speak", false);
+            long now = System.currentTimeMillis();
+            PaymentTotals totals = PaymentMessagingService.getTotals(getContext());
+            PaymentTotals.Day today = totals.getToday(now);
+            JSObject ret = dayToJson(today);
+            ret.put("yesterday", dayToJson(totals.getYesterday(now)));
+            JSArray senders = new JSArray();
+            for (PaymentTotals.Sender sender : totals.getTopSenders(now, senderLimit)) {
+                JSObject item = new JSObject();
+                item.put("name", sender.name);
+                item.put("count", sender.count);
+                item.put("totalMinor", sender.totalMinor);
+                item.put("total", Money.toPlainString(sender.totalMinor));
+                senders.put(item);
+            }
+            ret.put("senders", senders);
+            PaymentTotals.Sender others = totals.getOtherSenders(now);
+            if (others != null) {
+                JSObject item = new JSObject();
+                item.put("count", others.count);
+                item.put("totalMinor", others.totalMinor);
+                item.put("total", Money.toPlainString(others.totalMinor));
+                ret.put("otherSenders", item);
+            }
+            if (speak && implementation != null) {
+                implementation.playTtsOnly(AnnouncementText.daySummary(today.count,
+                        today.otherCurrency > 0 ? Money.INVALID : today.totalMinor,
+                        today.currency, implementation.getMerchantBusiness()));
+            }
+            call.resolve(ret);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in getTotals: " + e.getMessage(), e);
+            call.reject("Get totals failed: " + e.getMessage());
+        }
+    }
+
+    private static JSObject dayToJson(PaymentTotals.Day day) {
+        JSObject json = new JSObject();
+        json.put("date", day.epochDay >= 0 ? PaymentTotals.formatDay(day.epochDay) : null);
+        json.put("count", day.count);
+        json.put("totalMinor", day.totalMinor);
+        json.put("total", Money.toPlainString(day.totalMinor));
+        json.put("currency", day.currency);
+        json.put("invalid", day.invalid);
+        json.put("otherCurrency", day.otherCurrency);
+        return json;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        try {
+            PaymentEventEmitter.get().detach(eventListener);
+            // The engine outlives the WebView: the messaging service keeps announcing through it.
+            implementation = null;
         } catch (Exception e) {
             Log.e(TAG, "Error in handleOnDestroy: " + e.getMessage(), e);
         }
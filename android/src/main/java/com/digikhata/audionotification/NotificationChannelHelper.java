@@ -4,6 +4,7 @@ import android.app.NotificationChannel;
 import android.app.NotificationChannelGroup;
 import android.app.NotificationManager;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.media.AudioAttributes;
 import android.media.RingtoneManager;
@@ -12,6 +13,9 @@ import android.os.Build;
 import androidx.core.app.NotificationCompat;
 import android.util.Log;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 public class NotificationChannelHelper {
     private static final String TAG = "NotificationChannelHelper";
     public static final String DEFAULT_CHANNEL_ID = "payment_channel";
@@ -20,8 +24,27 @@ public class NotificationChannelHelper {
     public static final String DEFAULT_CHANNEL_DESCRIPTION = "Critical payment notifications";
     public static final String DEFAULT_GROUP_NAME = "Payment Notifications";
 
+    private static final String PREFS_NAME = "native_audio_notification";
+    private static final String KEY_CHANNEL_SIGNATURE = "channelSignature";
+    private static final int IMPORTANCE = NotificationManager.IMPORTANCE_HIGH;
+    private static final int LIGHT_COLOR = Color.GREEN;
+    private static final long[] VIBRATION_PATTERN = {0, 300, 100, 300, 100, 300, 100, 600};
+    private static volatile String verifiedSignature;
+
+    /**
+     * Creates the default payment channel and group if this configuration has not been
+     * applied yet. Cheap enough to call on every startup.
+     */
+    public static void ensurePaymentNotificationChannel(Context context) {
+        createPaymentNotificationChannel(context, null, null, null, null, null);
+    }
+
     /**
      * Creates a notification channel and group for payment alerts.
+     * <p>
+     * The desired configuration is hashed into a signature that is stored once the channel
+     * has been created or verified. While the stored signature matches, no NotificationManager
+     * calls are made at all.
      * @param context The application context.
      * @param channelId The ID of the notification channel (defaults to DEFAULT_CHANNEL_ID if null/empty).
      * @param channelName The name of the notification channel (defaults to DEFAULT_CHANNEL_NAME if null/empty).
@@ -42,12 +65,6 @@ public class NotificationChannelHelper {
             return;
         }
 
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        if (notificationManager == null) {
-            Log.e(TAG, "NotificationManager is null, cannot create channel");
-            return;
-        }
-
         try {
             channelId = channelId != null && !channelId.trim().isEmpty() ? channelId : DEFAULT_CHANNEL_ID;
             channelName = channelName != null && !channelName.trim().isEmpty() ? channelName : DEFAULT_CHANNEL_NAME;
@@ -55,8 +72,30 @@ public class NotificationChannelHelper {
             groupId = groupId != null && !groupId.trim().isEmpty() ? groupId : DEFAULT_GROUP_ID;
             groupName = groupName != null && !groupName.trim().isEmpty() ? groupName : DEFAULT_GROUP_NAME;
 
+            Uri soundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+            AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_NOTIFICATION_EVENT)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                    .setFlags(AudioAttributes.FLAG_AUDIBILITY_ENFORCED)
+                    .build();
+
+            String signature = signatureFor(channelId, channelName, channelDescription, groupId, groupName, soundUri, audioAttributes);
+            if (signature.equals(verifiedSignature)) return;
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            if (signature.equals(prefs.getString(KEY_CHANNEL_SIGNATURE, null))) {
+                verifiedSignature = signature;
+                Log.d(TAG, "Notification channel signature unchanged, skipping channel setup");
+                return;
+            }
+
+            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (notificationManager == null) {
+                Log.e(TAG, "NotificationManager is null, cannot create channel");
+                return;
+            }
+
             NotificationChannelGroup group = notificationManager.getNotificationChannelGroup(groupId);
-            if (group == null) {
+            if (group == null || !groupName.contentEquals(group.getName())) {
                 group = new NotificationChannelGroup(groupId, groupName);
                 group.setDescription("All payment-related notifications");
                 notificationManager.createNotificationChannelGroup(group);
@@ -67,50 +106,36 @@ public class NotificationChannelHelper {
 
             NotificationChannel channel = notificationManager.getNotificationChannel(channelId);
             if (channel == null) {
-                channel = new NotificationChannel(channelId, channelName, NotificationManager.IMPORTANCE_HIGH);
-                channel.setDescription(channelDescription);
-                channel.setGroup(groupId);
-                channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-                channel.enableLights(true);
-                channel.setLightColor(Color.GREEN);
-                channel.enableVibration(true);
-                channel.setVibrationPattern(new long[]{0, 300, 100, 300, 100, 300, 100, 600});
-                channel.setBypassDnd(true);
-                channel.setShowBadge(true);
-
-                Uri soundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_NOTIFICATION_EVENT)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                        .setFlags(AudioAttributes.FLAG_AUDIBILITY_ENFORCED)
-                        .build();
-                channel.setSound(soundUri, audioAttributes);
-
+                channel = new NotificationChannel(channelId, channelName, IMPORTANCE);
+                applyConfiguration(channel, channelDescription, groupId, soundUri, audioAttributes);
                 notificationManager.createNotificationChannel(channel);
                 Log.d(TAG, "Created notification channel: " + channelId);
             } else {
                 Log.d(TAG, "Notification channel already exists: " + channelId);
-                boolean needsUpdate = channel.getImportance() != NotificationManager.IMPORTANCE_HIGH ||
+                boolean needsUpdate = !channelName.contentEquals(channel.getName()) ||
+                        !channelDescription.equals(channel.getDescription()) ||
+                        !groupId.equals(channel.getGroup()) ||
+                        channel.getImportance() != IMPORTANCE ||
                         channel.getLockscreenVisibility() != NotificationCompat.VISIBILITY_PUBLIC ||
-                        !channel.shouldShowLights() || channel.getLightColor() != Color.GREEN ||
-                        !channel.shouldVibrate() || !channel.getVibrationPattern().equals(new long[]{0, 300, 100, 300, 100, 300, 100, 600}) ||
+                        !channel.shouldShowLights() || channel.getLightColor() != LIGHT_COLOR ||
+                        !channel.shouldVibrate() || !Arrays.equals(channel.getVibrationPattern(), VIBRATION_PATTERN) ||
                         !channel.canBypassDnd() || !channel.canShowBadge() ||
-                        !channel.getSound().equals(soundUri) || !channel.getAudioAttributes().equals(audioAttributes);
+                        !Objects.equals(channel.getSound(), soundUri) ||
+                        !Objects.equals(channel.getAudioAttributes(), audioAttributes);
 
                 if (needsUpdate) {
-                    channel.setImportance(NotificationManager.IMPORTANCE_HIGH);
-                    channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-                    channel.enableLights(true);
-                    channel.setLightColor(Color.GREEN);
-                    channel.enableVibration(true);
-                    channel.setVibrationPattern(new long[]{0, 300, 100, 300, 100, 300, 100, 600});
-                    channel.setBypassDnd(true);
-                    channel.setShowBadge(true);
-                    channel.setSound(soundUri, audioAttributes);
+                    // The system only applies name, description, group and lower importance to an
+                    // existing channel; the rest stays under the user's control.
+                    channel.setName(channelName);
+                    channel.setImportance(IMPORTANCE);
+                    applyConfiguration(channel, channelDescription, groupId, soundUri, audioAttributes);
                     notificationManager.createNotificationChannel(channel);
                     Log.d(TAG, "Updated notification channel: " + channelId);
                 }
             }
+
+            prefs.edit().putString(KEY_CHANNEL_SIGNATURE, signature).apply();
+            verifiedSignature = signature;
         } catch (SecurityException e) {
             Log.e(TAG, "Security exception creating notification channel: " + e.getMessage(), e);
         } catch (Exception e) {
@@ -118,6 +143,34 @@ public class NotificationChannelHelper {
         }
     }
 
+    private static void applyConfiguration(NotificationChannel channel, String description, String groupId,
+                                           Uri soundUri, AudioAttributes audioAttributes) {
+        channel.setDescription(description);
+        channel.setGroup(groupId);
+        channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        channel.enableLights(true);
+        channel.setLightColor(LIGHT_COLOR);
+        channel.enableVibration(true);
+        channel.setVibrationPattern(VIBRATION_PATTERN);
+        channel.setBypassDnd(true);
+        channel.setShowBadge(true);
+        channel.setSound(soundUri, audioAttributes);
+    }
+
+    private static String signatureFor(String channelId, String channelName, String channelDescription,
+                                       String groupId, String groupName, Uri soundUri, AudioAttributes audioAttributes) {
+        String description = Build.VERSION.SDK_INT + "|" + channelId + "|" + channelName + "|" + channelDescription
+                + "|" + groupId + "|" + groupName + "|" + IMPORTANCE + "|" + LIGHT_COLOR
+                + "|" + Arrays.toString(VIBRATION_PATTERN) + "|" + soundUri
+                + "|" + audioAttributes.getUsage() + "|" + audioAttributes.getContentType() + "|" + audioAttributes.getFlags();
+        return DiskLruCache.hashKey(description);
+    }
+
+    /** Forgets the in-memory signature so the next call checks the stored one, as after a restart. */
+    static void forgetVerifiedSignature() {
+        verifiedSignature = null;
+    }
+
     public static String getDefaultChannelId() {
         return DEFAULT_CHANNEL_ID;
     }
@@ -0,0 +1,202 @@
+package com.digikhata.audionotification;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.core.app.NotificationCompat;
+
+/**
+ * Builds every notification the plugin posts. The launch activity is resolved once and
+ * each style keeps a template builder with its constant fields already applied, so the
+ * hot path only fills in per-payment fields. PendingIntent request codes are derived
+ * from the notification ID, so re-posting a payment reuses its intents instead of
+ * minting new ones.
+ */
+public class NotificationFactory {
+    private static final String CHANNEL_ID = NotificationChannelHelper.DEFAULT_CHANNEL_ID;
+    private static final String GROUP_ID = NotificationChannelHelper.DEFAULT_GROUP_ID;
+    private static final int LAUNCH_REQUEST_CODE = 0;
+    private static final int INTENT_FLAGS = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+    private static final long[] VIBRATION_PATTERN = {0, 300, 100, 300, 100, 300, 100, 600};
+    private static NotificationFactory instance;
+
+    private final Context context;
+    private final ComponentName launchComponent;
+    private final PendingIntent launchIntent;
+    private final NotificationCompat.Builder paymentTemplate;
+    private final NotificationCompat.Builder lockScreenTemplate;
+    private final NotificationCompat.Builder genericTemplate;
+    private final NotificationCompat.Builder summaryTemplate;
+
+    private NotificationFactory(Context context) {
+        this.context = context;
+        this.launchComponent = resolveLaunchComponent(context);
+        this.launchIntent = PendingIntent.getActivity(context, LAUNCH_REQUEST_CODE, newLaunchIntent(), INTENT_FLAGS);
+        int appIcon = context.getApplicationInfo().icon;
+
+        paymentTemplate = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(appIcon)
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setCategory(NotificationCompat.CATEGORY_MESSAGE)
+                .setAutoCancel(false)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setOngoing(false)
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setVibrate(VIBRATION_PATTERN)
+                .setLights(Color.GREEN, 1000, 1000)
+                .setShowWhen(true)
+                .setGroup(GROUP_ID);
+
+        lockScreenTemplate = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_dialog_alert)
+                .setContentTitle("Payment Received")
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setAutoCancel(false)
+                .setShowWhen(true)
+                .setGroup(GROUP_ID);
+
+        genericTemplate = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(appIcon)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true)
+                .setContentIntent(launchIntent);
+
+        summaryTemplate = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(appIcon)
+                .setGroup(GROUP_ID)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .setOnlyAlertOnce(true)
+                .setCategory(NotificationCompat.CATEGORY_MESSAGE)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setAutoCancel(true)
+                .setShowWhen(true)
+                .setContentIntent(launchIntent)
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Acknowledge all", acknowledgeAllIntent());
+    }
+
+    public static synchronized NotificationFactory getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationFactory(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** @return An intent that opens the app without payment extras. */
+    public PendingIntent getLaunchIntent() {
+        return launchIntent;
+    }
+
+    /**
+     * @param largeIcon The sender image, or null.
+     * @param alertOnce true when re-posting an existing notification, e.g. to attach the image.
+     */
+    public synchronized Notification buildPayment(int notificationId, String title, String body, String senderName,
+                                                  String amount, String currency, String transactionId,
+                                                  Bitmap largeIcon, boolean alertOnce) {
+        PendingIntent contentIntent = paymentIntent(notificationId, transactionId, senderName, amount, currency);
+        NotificationCompat.BigTextStyle bigTextStyle = new NotificationCompat.BigTextStyle()
+                .bigText("Payment of " + currency + amount + " received from " + senderName)
+                .setBigContentTitle("💰 " + title);
+        return paymentTemplate
+                .setContentTitle(title)
+                .setContentText(body)
+                .setTicker(title)
+                .setContentIntent(contentIntent)
+                .setFullScreenIntent(contentIntent, true)
+                .setWhen(System.currentTimeMillis())
+                .setStyle(bigTextStyle)
+                .setLargeIcon(largeIcon)
+                .setOnlyAlertOnce(alertOnce)
+                .clearActions()
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Acknowledge", acknowledgeIntent(notificationId))
+                .build();
+    }
+
+    public synchronized Notification buildLockScreen(int notificationId, String amount, String currency,
+                                                     String customerName, String transactionId, long timestamp) {
+        PendingIntent contentIntent = paymentIntent(notificationId, transactionId, customerName, amount, currency);
+        return lockScreenTemplate
+                .setContentText(currency + " " + amount + " from " + (customerName != null ? customerName : "customer"))
+                .setFullScreenIntent(contentIntent, true)
+                .setWhen(timestamp)
+                .clearActions()
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Acknowledge", acknowledgeIntent(notificationId))
+                .addAction(android.R.drawable.ic_menu_info_details, "View Details", contentIntent)
+                .build();
+    }
+
+    public synchronized Notification buildGeneric(String title, String body) {
+        return genericTemplate
+                .setContentTitle(title)
+                .setContentText(body)
+                .build();
+    }
+
+    /**
+     * @param lines The most recent payments, newest first.
+     * @param summaryText The line under the list, or null.
+     */
+    public synchronized Notification buildGroupSummary(String title, String text, Iterable<String> lines,
+                                                       String summaryText, int count) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+        for (String line : lines) {
+            style.addLine(line);
+        }
+        if (summaryText != null) {
+            style.setSummaryText(summaryText);
+        }
+        return summaryTemplate
+                .setContentTitle(title)
+                .setContentText(text)
+                .setStyle(style)
+                .setNumber(count)
+                .setWhen(System.currentTimeMillis())
+                .build();
+    }
+
+    private PendingIntent paymentIntent(int notificationId, String transactionId, String senderName,
+                                        String amount, String currency) {
+        Intent intent = newLaunchIntent();
+        intent.putExtra("transactionId", transactionId);
+        intent.putExtra("senderName", senderName);
+        intent.putExtra("amount", amount);
+        intent.putExtra("currency", currency);
+        intent.putExtra("notificationTapped", true);
+        return PendingIntent.getActivity(context, notificationId, intent, INTENT_FLAGS);
+    }
+
+    private PendingIntent acknowledgeIntent(int notificationId) {
+        Intent ackIntent = new Intent(context, AcknowledgeReceiver.class);
+        ackIntent.putExtra(AcknowledgeReceiver.EXTRA_NOTIFICATION_ID, notificationId);
+        return PendingIntent.getBroadcast(context, notificationId, ackIntent, INTENT_FLAGS);
+    }
+
+    private PendingIntent acknowledgeAllIntent() {
+        Intent ackIntent = new Intent(context, AcknowledgeReceiver.class);
+        ackIntent.putExtra(AcknowledgeReceiver.EXTRA_ALL, true);
+        return PendingIntent.getBroadcast(context, PaymentNotificationScheduler.SUMMARY_NOTIFICATION_ID, ackIntent, INTENT_FLAGS);
+    }
+
+    private Intent newLaunchIntent() {
+        Intent intent = new Intent();
+        intent.setComponent(launchComponent);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        return intent;
+    }
+
+    private static ComponentName resolveLaunchComponent(Context context) {
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (launch != null && launch.getComponent() != null) {
+            return launch.getComponent();
+        }
+        return new ComponentName(context.getPackageName(), context.getPackageName() + ".MainActivity");
+    }
+}
@@ -0,0 +1,137 @@
+package com.digikhata.audionotification;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads notification images off the message path. Images are downloaded with deadlines,
+ * decoded straight to notification-icon size and kept in a memory LRU backed by a disk
+ * LRU of the decoded bitmaps, so repeat senders never hit the network again.
+ */
+public class NotificationImageLoader {
+    private static final String TAG = "NotificationImageLoader";
+    private static final String CACHE_DIR = "notification_images";
+    private static final long DISK_CACHE_BYTES = 4L * 1024 * 1024;
+    private static final int MEMORY_CACHE_BYTES = 2 * 1024 * 1024;
+    private static NotificationImageLoader instance;
+
+    public interface Callback {
+        void onImageLoaded(Bitmap bitmap);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "NotificationImageLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ImageFetcher fetcher = new ImageFetcher(
+            ImageFetcher.DEFAULT_CONNECT_TIMEOUT_MS, ImageFetcher.DEFAULT_READ_TIMEOUT_MS, ImageFetcher.DEFAULT_MAX_BYTES);
+    private final LruCache<String, Bitmap> memoryCache = new LruCache<String, Bitmap>(MEMORY_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+    private final DiskLruCache diskCache;
+    private final int iconSizePx;
+
+    private NotificationImageLoader(Context context) {
+        diskCache = new DiskLruCache(new File(context.getCacheDir(), CACHE_DIR), ".png", DISK_CACHE_BYTES);
+        iconSizePx = Math.max(
+                context.getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_width),
+                context.getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_height));
+    }
+
+    public static synchronized NotificationImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** @return The decoded image if it is already in memory, otherwise null. */
+    public Bitmap getCached(String imageUrl) {
+        return memoryCache.get(imageUrl);
+    }
+
+    /**
+     * Loads an image in the background. The callback runs on the loader thread and is
+     * not invoked if the image cannot be fetched or decoded.
+     */
+    public void load(String imageUrl, Callback callback) {
+        Bitmap cached = memoryCache.get(imageUrl);
+        if (cached != null) {
+            callback.onImageLoaded(cached);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                Bitmap bitmap = loadBlocking(imageUrl);
+                if (bitmap != null) {
+                    memoryCache.put(imageUrl, bitmap);
+                    callback.onImageLoaded(bitmap);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading notification image: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private Bitmap loadBlocking(String imageUrl) throws Exception {
+        String key = DiskLruCache.hashKey(iconSizePx + "|" + imageUrl);
+        File cachedFile = diskCache.get(key);
+        if (cachedFile != null) {
+            Bitmap bitmap = BitmapFactory.decodeFile(cachedFile.getAbsolutePath());
+            if (bitmap != null) return bitmap;
+        }
+
+        byte[] bytes = fetcher.fetch(imageUrl);
+        Bitmap bitmap = decodeSampled(bytes, iconSizePx);
+        if (bitmap == null) {
+            Log.w(TAG, "Could not decode notification image");
+            return null;
+        }
+
+        File target = diskCache.beginWrite(key);
+        if (target != null) {
+            try (OutputStream out = new FileOutputStream(target)) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            }
+            diskCache.commit(key);
+        }
+        return bitmap;
+    }
+
+    static Bitmap decodeSampled(byte[] bytes, int targetPx) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= targetPx && options.outHeight / (sampleSize * 2) >= targetPx) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap decoded = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (decoded == null) return null;
+
+        int shortest = Math.min(decoded.getWidth(), decoded.getHeight());
+        if (shortest <= targetPx) return decoded;
+        float scale = (float) targetPx / shortest;
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded,
+                Math.round(decoded.getWidth() * scale), Math.round(decoded.getHeight() * scale), true);
+        if (scaled != decoded) decoded.recycle();
+        return scaled;
+    }
+}
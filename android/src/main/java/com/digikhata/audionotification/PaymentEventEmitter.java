@@ -0,0 +1,145 @@
+package com.digikhata.audionotification;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.List;
+
+/**
+ * Forwards native payment and announcement events to the JS layer in batches. Events are
+ * collected for one window and then sent as a single {@code notifyListeners} call per
+ * event name, with at most {@link #MAX_BATCH} events per crossing. While no plugin is
+ * attached or nothing listens, events are discarded; the payment journal covers that gap.
+ */
+public class PaymentEventEmitter {
+    private static final String TAG = "PaymentEventEmitter";
+    public static final String EVENT_PAYMENT_RECEIVED = "paymentReceived";
+    public static final String EVENT_ANNOUNCEMENT_STATE = "announcementState";
+    private static final long WINDOW_MS = 100;
+    private static final int CAPACITY = 200;
+    private static final int MAX_BATCH = 50;
+    private static final PaymentEventEmitter INSTANCE = new PaymentEventEmitter();
+
+    /** Receives batches on the main thread. */
+    public interface Listener {
+        boolean hasListeners(String eventName);
+
+        void notifyListeners(String eventName, JSObject data);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final EventBatcher<JSObject> payments = new EventBatcher<>(CAPACITY, MAX_BATCH);
+    private final EventBatcher<JSObject> states = new EventBatcher<>(CAPACITY, MAX_BATCH);
+    private final Runnable flush = this::flush;
+    private volatile Listener listener;
+    private boolean flushScheduled;
+
+    private PaymentEventEmitter() {
+    }
+
+    public static PaymentEventEmitter get() {
+        return INSTANCE;
+    }
+
+    public void attach(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void detach(Listener listener) {
+        if (this.listener == listener) {
+            this.listener = null;
+            payments.clear();
+            states.clear();
+        }
+    }
+
+    public void emitPayment(long sequence, PaymentPayload payload, long receivedAt) {
+        Listener current = listener;
+        if (current == null || !current.hasListeners(EVENT_PAYMENT_RECEIVED)) return;
+        JSObject event = new JSObject();
+        event.put("sequence", sequence);
+        event.put("receivedAt", receivedAt);
+        event.put("transactionId", payload.getTransactionId());
+        event.put("amount", payload.getAmount());
+        event.put("currency", payload.getCurrency());
+        event.put("senderName", payload.getSenderName());
+        enqueue(payments, event);
+    }
+
+    /**
+     * @param state One of started, done, error or stopped.
+     * @param announcement The announcement the state applies to, or null if unknown.
+     */
+    public void emitAnnouncementState(String state, String utteranceId, Announcement announcement, int queued) {
+        Listener current = listener;
+        if (current == null || !current.hasListeners(EVENT_ANNOUNCEMENT_STATE)) return;
+        JSObject event = new JSObject();
+        event.put("state", state);
+        event.put("utteranceId", utteranceId);
+        event.put("at", System.currentTimeMillis());
+        event.put("queued", queued);
+        if (announcement != null) {
+            event.put("kind", announcement.isSummary() ? "summary" : announcement.isPayment() ? "payment" : "text");
+            event.put("paymentCount", announcement.getPaymentCount());
+        }
+        enqueue(states, event);
+    }
+
+    public long getEmitted() {
+        return payments.getAdded() + states.getAdded();
+    }
+
+    public long getBatches() {
+        return payments.getBatches() + states.getBatches();
+    }
+
+    public long getDropped() {
+        return payments.getDropped() + states.getDropped();
+    }
+
+    private void enqueue(EventBatcher<JSObject> batcher, JSObject event) {
+        batcher.add(event);
+        scheduleFlush();
+    }
+
+    private synchronized void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        handler.postDelayed(flush, WINDOW_MS);
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        Listener current = listener;
+        if (current == null) return;
+        deliver(current, EVENT_PAYMENT_RECEIVED, "payments", payments);
+        deliver(current, EVENT_ANNOUNCEMENT_STATE, "states", states);
+        // Anything beyond one batch waits for the next window instead of flooding the bridge.
+        if (payments.hasPending() || states.hasPending()) {
+            scheduleFlush();
+        }
+    }
+
+    private void deliver(Listener current, String eventName, String key, EventBatcher<JSObject> batcher) {
+        List<JSObject> batch = batcher.drain();
+        if (batch.isEmpty()) return;
+        try {
+            JSArray events = new JSArray();
+            for (JSObject event : batch) {
+                events.put(event);
+            }
+            JSObject data = new JSObject();
+            data.put(key, events);
+            data.put("dropped", batcher.takeDropped());
+            current.notifyListeners(eventName, data);
+        } catch (Exception e) {
+            Log.e(TAG, "Error delivering " + eventName + " events: " + e.getMessage(), e);
+        }
+    }
+}
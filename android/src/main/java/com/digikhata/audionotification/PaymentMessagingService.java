@@ -1,16 +1,9 @@
 package com.digikhata.audionotification;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.media.AudioAttributes;
 import android.os.Build;
-import android.os.PowerManager;
 import android.speech.tts.TextToSpeech;
 import android.speech.tts.UtteranceProgressListener;
 import android.util.Log;
@@ -21,17 +14,86 @@ import androidx.core.app.NotificationManagerCompat;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
-import java.io.InputStream;
-import java.net.URL;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PaymentMessagingService extends FirebaseMessagingService {
     private static final String TAG = "PaymentMessagingService";
     private static final AtomicInteger NOTIFICATION_ID_GENERATOR = new AtomicInteger(1000);
-    private static final String CHANNEL_ID = NotificationChannelHelper.DEFAULT_CHANNEL_ID;
-    private PendingIntent ackPendingIntent;
+    private static final String DEDUP_FILE = "payment_dedup.bin";
+    private static final String JOURNAL_DIR = "payment_journal";
+    private static final String TOTALS_FILE = "payment_totals.bin";
+    private static final String TOKEN_FILE = "fcm_token.bin";
+    private static final String PREFS_NAME = "native_audio_notification";
+    private static final String PREF_TOKEN_ENDPOINT = "tokenEndpoint";
+    private static PaymentDedupIndex dedupIndex;
+    private static PaymentJournal journal;
+    private static PaymentTotals totals;
+    private static TokenSync tokenSync;
+
+    static synchronized PaymentDedupIndex getDedupIndex(Context context) {
+        if (dedupIndex == null) {
+            dedupIndex = new PaymentDedupIndex(new File(context.getApplicationContext().getFilesDir(), DEDUP_FILE), PaymentDedupIndex.DEFAULT_CAPACITY);
+        }
+        return dedupIndex;
+    }
+
+    static synchronized PaymentJournal getJournal(Context context) {
+        if (journal == null) {
+            journal = new PaymentJournal(new File(context.getApplicationContext().getFilesDir(), JOURNAL_DIR));
+        }
+        return journal;
+    }
+
+    static synchronized PaymentTotals getTotals(Context context) {
+        if (totals == null) {
+            totals = new PaymentTotals(new File(context.getApplicationContext().getFilesDir(), TOTALS_FILE),
+                    PaymentTotals.DEFAULT_SENDER_CAPACITY, null);
+        }
+        return totals;
+    }
+
+    static synchronized TokenSync getTokenSync(Context context) {
+        if (tokenSync == null) {
+            Context app = context.getApplicationContext();
+            String url = app.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getString(PREF_TOKEN_ENDPOINT, null);
+            tokenSync = new TokenSync(new File(app.getFilesDir(), TOKEN_FILE), createTokenEndpoint(url),
+                    Executors.newSingleThreadScheduledExecutor(), new Random(), TokenSync.DEFAULT_COALESCE_MS);
+        }
+        return tokenSync;
+    }
+
+    /**
+     * Sets the URL FCM tokens are registered at and sends any token still waiting for it.
+     * @param url An http or https URL, or null to hold tokens until one is set.
+     * @throws IOException if the URL is not usable.
+     */
+    static void setTokenEndpoint(Context context, String url) throws IOException {
+        TokenSync.Endpoint endpoint = url != null
+                ? new HttpTokenEndpoint(url, HttpTokenEndpoint.DEFAULT_CONNECT_TIMEOUT_MS, HttpTokenEndpoint.DEFAULT_READ_TIMEOUT_MS)
+                : null;
+        context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putString(PREF_TOKEN_ENDPOINT, url)
+                .apply();
+        getTokenSync(context).setEndpoint(endpoint);
+    }
+
+    private static TokenSync.Endpoint createTokenEndpoint(String url) {
+        if (url == null) return null;
+        try {
+            return new HttpTokenEndpoint(url, HttpTokenEndpoint.DEFAULT_CONNECT_TIMEOUT_MS, HttpTokenEndpoint.DEFAULT_READ_TIMEOUT_MS);
+        } catch (IOException e) {
+            Log.e(TAG, "Invalid token endpoint: " + e.getMessage(), e);
+            return null;
+        }
+    }
 
     @Override
     public void onCreate() {
@@ -44,23 +106,13 @@ public class PaymentMessagingService extends FirebaseMessagingService {
         }
     }
 
-    @Override
-    public void onDestroy() {
-        try {
-            NativeAudioNotification.destroyInstance();
-        } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup: " + e.getMessage(), e);
-        }
-        super.onDestroy();
-    }
-
     @Override
     public void onMessageReceived(RemoteMessage remoteMessage) {
-        Log.d(TAG, "From: " + remoteMessage.getFrom());
+        long receivedAt = System.currentTimeMillis();
 
         Map<String, String> data = remoteMessage.getData();
-        if (data.containsKey("type") && "payment".equals(data.get("type"))) {
-            handlePaymentNotification(data, remoteMessage.getNotification());
+        if (PaymentPayload.isPaymentMessage(data)) {
+            handlePaymentNotification(remoteMessage, receivedAt);
         } else if (remoteMessage.getNotification() != null) {
             showNotification(remoteMessage.getNotification().getTitle(), remoteMessage.getNotification().getBody(), data);
         }
@@ -68,30 +120,110 @@ public class PaymentMessagingService extends FirebaseMessagingService {
 
     @Override
     public void onNewToken(String token) {
-        Log.d(TAG, "Refreshed token received (partial): " + token.substring(0, Math.min(token.length(), 10)) + "...");
+        FlightRecorder.get().record(FlightRecorder.TOKEN_REFRESHED);
         sendTokenToServer(token);
     }
 
-    private void handlePaymentNotification(Map<String, String> data, RemoteMessage.Notification notification) {
-        String title = notification != null ? notification.getTitle() : "Payment Received";
-        String body = notification != null ? notification.getBody() : "You have received a payment";
-        String senderName = validateInput(data.get("senderName"), "Unknown");
-        String amount = validateInput(data.get("amount"), "0");
-        String currency = validateInput(data.get("currency"), "₹");
-        String transactionId = validateInput(data.get("transactionId"), "");
-        String imageUrl = data.get("imageUrl");
+    private void handlePaymentNotification(RemoteMessage remoteMessage, long receivedAt) {
+        RemoteMessage.Notification notification = remoteMessage.getNotification();
+        Map<String, String> data = remoteMessage.getData();
+        long sentAt = remoteMessage.getSentTime();
+        if (sentAt > 0) {
+            PaymentMetrics.get().transport.record(receivedAt - sentAt);
+        }
+        FlightRecorder.get().record(FlightRecorder.MESSAGE_RECEIVED, sentAt > 0 ? receivedAt - sentAt : -1);
+
+        if (PaymentBatch.isBatch(data)) {
+            handlePaymentBatch(data, remoteMessage.getMessageId(), sentAt, receivedAt);
+            return;
+        }
+
+        PaymentPayload payload = PaymentPayload.fromData(data,
+                notification != null ? notification.getTitle() : null,
+                notification != null ? notification.getBody() : null,
+                remoteMessage.getMessageId());
+        if (!acceptPayment(payload, sentAt, receivedAt)) return;
+
+        wakeUpScreen();
+        playTtsNotification(payload, sentAt, receivedAt, payload.getNotificationId());
+        showPaymentNotification(payload);
+        PaymentMetrics.get().receivedToPosted.record(System.currentTimeMillis() - receivedAt);
+    }
+
+    /**
+     * Handles a message carrying several payments: each is deduplicated, journaled, emitted and
+     * announced on its own, but the screen is woken once and they share one summary post.
+     */
+    private void handlePaymentBatch(Map<String, String> data, String messageId, long sentAt, long receivedAt) {
+        List<PaymentPayload> fresh = new ArrayList<>();
+        try {
+            for (PaymentPayload payload : PaymentBatch.decode(data, messageId)) {
+                if (acceptPayment(payload, sentAt, receivedAt)) {
+                    fresh.add(payload);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error decoding payment batch: " + e.getMessage(), e);
+        }
+        if (fresh.isEmpty()) return;
 
         wakeUpScreen();
-        playTtsNotification(amount, currency, senderName);
-        showPaymentNotification(title, body, senderName, amount, currency, transactionId, imageUrl);
+        // Only a lone payment gets a notification of its own; the others are acknowledged from the summary.
+        for (PaymentPayload payload : fresh) {
+            playTtsNotification(payload, sentAt, receivedAt, fresh.size() == 1
+                    ? payload.getNotificationId() : PaymentNotificationScheduler.SUMMARY_NOTIFICATION_ID);
+        }
+        if (fresh.size() == 1) {
+            showPaymentNotification(fresh.get(0));
+        } else {
+            try {
+                PaymentNotificationScheduler.getInstance(this).postBatch(fresh);
+            } catch (Exception e) {
+                Log.e(TAG, "Error showing payment batch notification: " + e.getMessage(), e);
+            }
+        }
+        PaymentMetrics.get().receivedToPosted.record(System.currentTimeMillis() - receivedAt);
+    }
+
+    /**
+     * Records a payment in the dedup index and journal and emits it to the web layer.
+     * @return false if the payment was already delivered and should be ignored.
+     */
+    private boolean acceptPayment(PaymentPayload payload, long sentAt, long receivedAt) {
+        String dedupKey = payload.getDedupKey();
+        try {
+            if (getDedupIndex(this).checkAndRecord(dedupKey)) {
+                FlightRecorder.get().record(FlightRecorder.PAYMENT_DUPLICATE, payload.getNotificationId());
+                return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking payment dedup index: " + e.getMessage(), e);
+        }
+
+        long sequence = -1;
+        try {
+            sequence = getJournal(this).append(receivedAt, sentAt, payload.getTransactionId(), payload.getAmount(),
+                    payload.getCurrency(), payload.getSenderName());
+        } catch (Exception e) {
+            Log.e(TAG, "Error writing payment journal: " + e.getMessage(), e);
+        }
+        try {
+            getTotals(this).record(receivedAt, payload.getAmount(), payload.getCurrency(), payload.getSenderName());
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating payment totals: " + e.getMessage(), e);
+        }
+        FlightRecorder.get().record(FlightRecorder.PAYMENT_ACCEPTED, sequence, payload.getNotificationId());
+        PaymentEventEmitter.get().emitPayment(sequence, payload, receivedAt);
+        return true;
     }
 
-    private void playTtsNotification(String amount, String currency, String senderName) {
+    /** @param notificationId The notification whose acknowledge action cancels the announcement, or 0. */
+    private void playTtsNotification(PaymentPayload payload, long sentAt, long receivedAt, int notificationId) {
         try {
             NativeAudioNotification audioNotification = NativeAudioNotification.getInstance(this);
             if (audioNotification != null) {
-                String audioText = currency + " " + amount + " received from " + senderName + " on " + audioNotification.getMerchantBusiness();
-                audioNotification.playTtsOnly(audioText);
+                audioNotification.announcePayment(payload.getAmount(), payload.getCurrency(), payload.getSenderName(),
+                        payload.getLanguage(), sentAt, receivedAt, notificationId);
             } else {
                 Log.w(TAG, "audioNotification not initialized");
             }
@@ -100,63 +232,31 @@ public class PaymentMessagingService extends FirebaseMessagingService {
         }
     }
 
-    private void showPaymentNotification(String title, String body, String senderName, String amount, String currency, String transactionId, String imageUrl) {
+    private void showPaymentNotification(PaymentPayload payload) {
+        String title = payload.getTitle();
+        String body = payload.getBody();
+        String senderName = payload.getSenderName();
+        String amount = payload.getAmount();
+        String currency = payload.getCurrency();
+        String transactionId = payload.getTransactionId();
+        int notificationId = payload.getNotificationId();
+        String imageUrl = payload.getImageUrl();
         try {
-            Intent ackIntent = new Intent(this, AcknowledgeReceiver.class);
-            ackIntent.putExtra("notificationId", transactionId.hashCode());
-            ackPendingIntent = PendingIntent.getBroadcast(this, transactionId.hashCode(), ackIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-
-            Intent intent = new Intent(this, getMainActivityClass());
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-            intent.putExtra("transactionId", transactionId);
-            intent.putExtra("senderName", senderName);
-            intent.putExtra("amount", amount);
-            intent.putExtra("currency", currency);
-            intent.putExtra("notificationTapped", true);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(this, NOTIFICATION_ID_GENERATOR.getAndIncrement(), intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                    .setSmallIcon(getApplicationInfo().icon)
-                    .setContentTitle(title)
-                    .setContentText(body)
-                    .setPriority(NotificationCompat.PRIORITY_MAX)
-                    .setCategory(NotificationCompat.CATEGORY_MESSAGE)
-                    .setAutoCancel(false)
-                    .setContentIntent(pendingIntent)
-                    .setFullScreenIntent(pendingIntent, true)
-                    .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                    .setOngoing(false)
-                    .setTicker(title)
-                    .setDefaults(NotificationCompat.DEFAULT_ALL)
-                    .setVibrate(new long[]{0, 300, 100, 300, 100, 300, 100, 600})
-                    .setLights(Color.GREEN, 1000, 1000)
-                    .setShowWhen(true)
-                    .setWhen(System.currentTimeMillis());
-
-            NotificationCompat.BigTextStyle bigTextStyle = new NotificationCompat.BigTextStyle()
-                    .bigText("Payment of " + currency + amount + " received from " + senderName)
-                    .setBigContentTitle("💰 " + title);
-            builder.setStyle(bigTextStyle);
-
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                InputStream in = new URL(imageUrl).openStream();
-                Bitmap bitmap = BitmapFactory.decodeStream(in);
-                builder.setLargeIcon(bitmap);
-                NotificationCompat.BigPictureStyle bigPictureStyle = new NotificationCompat.BigPictureStyle()
-                        .bigPicture(bitmap)
-                        .bigLargeIcon(null)
-                        .setBigContentTitle("💰 " + title)
-                        .setSummaryText("Payment of " + currency + amount + " received from " + senderName);
-                builder.setStyle(bigPictureStyle);
+            NotificationFactory factory = NotificationFactory.getInstance(this);
+            PaymentNotificationScheduler scheduler = PaymentNotificationScheduler.getInstance(this);
+            boolean hasImage = imageUrl != null;
+            Bitmap cachedImage = hasImage ? NotificationImageLoader.getInstance(this).getCached(imageUrl) : null;
+            boolean ownPost = scheduler.postPayment(notificationId, () -> factory.buildPayment(notificationId, title, body,
+                    senderName, amount, currency, transactionId, cachedImage, false), amount, currency, senderName);
+            FlightRecorder.get().record(FlightRecorder.NOTIFICATION_POSTED, notificationId, ownPost ? 1 : 0);
+            if (!ownPost) return;
+
+            if (hasImage && cachedImage == null) {
+                // Post the text first and attach the image once it arrives, without alerting again.
+                NotificationImageLoader.getInstance(this).load(imageUrl, bitmap ->
+                        scheduler.postUpdate(notificationId, () -> factory.buildPayment(notificationId, title, body,
+                                senderName, amount, currency, transactionId, bitmap, true)));
             }
-
-            builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, "Acknowledge", ackPendingIntent);
-
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(this);
-            int notificationId = transactionId.hashCode();
-            notificationManager.notify(notificationId, builder.build());
-            Log.d(TAG, "Payment notification shown successfully with ID: " + notificationId);
         } catch (SecurityException e) {
             Log.e(TAG, "Failed to show notification: permission denied", e);
         } catch (Exception e) {
@@ -168,21 +268,9 @@ public class PaymentMessagingService extends FirebaseMessagingService {
         if (title == null || body == null) return;
 
         try {
-            Intent intent = new Intent(this, getMainActivityClass());
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(this, NOTIFICATION_ID_GENERATOR.getAndIncrement(), intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                    .setSmallIcon(getApplicationInfo().icon)
-                    .setContentTitle(title)
-                    .setContentText(body)
-                    .setPriority(NotificationCompat.PRIORITY_HIGH)
-                    .setAutoCancel(true)
-                    .setContentIntent(pendingIntent);
-
             NotificationManagerCompat notificationManager = NotificationManagerCompat.from(this);
-            notificationManager.notify(NOTIFICATION_ID_GENERATOR.getAndIncrement(), builder.build());
+            notificationManager.notify(NOTIFICATION_ID_GENERATOR.getAndIncrement(),
+                    NotificationFactory.getInstance(this).buildGeneric(title, body));
         } catch (SecurityException e) {
             Log.e(TAG, "Failed to show general notification", e);
         } catch (Exception e) {
@@ -192,48 +280,24 @@ public class PaymentMessagingService extends FirebaseMessagingService {
 
     private void wakeUpScreen() {
         try {
-            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-            if (powerManager != null && !powerManager.isInteractive()) {
-                @SuppressWarnings("deprecation")
-                PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
-                        PowerManager.SCREEN_BRIGHT_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
-                        "PaymentNotification:WakeLock"
-                );
-                wakeLock.acquire(3000L);
-                wakeLock.release();
-            }
+            WakeLockManager.getInstance(this).wakeScreen();
         } catch (Exception e) {
             Log.e(TAG, "Error waking up screen: " + e.getMessage(), e);
         }
     }
 
     private void sendTokenToServer(String token) {
-        Log.i(TAG, "Sending FCM token to server (partial): " + token.substring(0, Math.min(token.length(), 10)) + "...");
-    }
-
-    private Class<?> getMainActivityClass() {
         try {
-            return Class.forName(getPackageName() + ".MainActivity");
-        } catch (ClassNotFoundException e) {
-            Log.e(TAG, "MainActivity class not found", e);
-            return null;
+            getTokenSync(this).onToken(token);
+        } catch (Exception e) {
+            Log.e(TAG, "Error queueing FCM token: " + e.getMessage(), e);
         }
     }
 
-    private String validateInput(String input, String defaultValue) {
-        return (input == null || input.trim().isEmpty()) ? defaultValue : input;
-    }
-
     private void startForegroundServiceNotification() {
         try {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                NotificationManager nm = getSystemService(NotificationManager.class);
-                if (nm != null && nm.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID) == null) {
-                    Log.w(TAG, "Channel not found, creating fallback");
-                    NotificationChannel channel = new NotificationChannel(
-                            NotificationChannelHelper.DEFAULT_CHANNEL_ID, "Payment Service", NotificationManager.IMPORTANCE_LOW);
-                    nm.createNotificationChannel(channel);
-                }
+                NotificationChannelHelper.ensurePaymentNotificationChannel(this);
                 NotificationCompat.Builder builder = new NotificationCompat.Builder(this, NotificationChannelHelper.DEFAULT_CHANNEL_ID)
                         .setSmallIcon(android.R.drawable.ic_dialog_info)
                         .setContentTitle("Payment Service Running")
@@ -0,0 +1,290 @@
+package com.digikhata.audionotification;
+
+import android.app.Notification;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationManagerCompat;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Posts payment notifications under a rate cap. Android silently drops posts from apps
+ * that notify too quickly, so payments that arrive close together are grouped under
+ * {@link NotificationChannelHelper#DEFAULT_GROUP_ID} with an InboxStyle summary that is
+ * updated in place. A payment that cannot get a post slot appears only in the summary.
+ */
+public class PaymentNotificationScheduler {
+    private static final String TAG = "PaymentNotifScheduler";
+    public static final int SUMMARY_NOTIFICATION_ID = 0x5041594D;
+    // Android allows roughly five posts per second per app; stay below it.
+    private static final double POSTS_PER_SECOND = 4;
+    private static final int POST_BURST = 4;
+    private static final long GROUP_WINDOW_MS = 15000;
+    private static final int MAX_SUMMARY_LINES = 6;
+    // Android keeps about 50 notifications per app; older ones are gone anyway.
+    private static final int MAX_TRACKED_POSTS = 50;
+    private static PaymentNotificationScheduler instance;
+
+    /** Produces a notification; only called once a post slot has been granted. */
+    public interface Content {
+        Notification build();
+    }
+
+    private final Context context;
+    private final NotificationManagerCompat notificationManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final PostRateLimiter limiter = new PostRateLimiter(POSTS_PER_SECOND, POST_BURST);
+    private final Runnable flushSummary = this::flushSummary;
+
+    private final ArrayDeque<String> summaryLines = new ArrayDeque<>();
+    private final LinkedHashSet<Integer> postedIds = new LinkedHashSet<>();
+    private int groupCount;
+    private long groupTotalMinor;
+    private String groupCurrency;
+    private boolean groupMixed;
+    private long lastPaymentAt = -GROUP_WINDOW_MS;
+    private boolean summaryDirty;
+    private boolean flushScheduled;
+
+    private long posted;
+    private long summaryUpdates;
+    private long coalesced;
+    private long suppressed;
+
+    private PaymentNotificationScheduler(Context context) {
+        this.context = context;
+        this.notificationManager = NotificationManagerCompat.from(context);
+    }
+
+    public static synchronized PaymentNotificationScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new PaymentNotificationScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Posts a payment notification, or folds it into the group summary when the post
+     * budget is exhausted.
+     * @return true if the payment got its own notification.
+     */
+    public synchronized boolean postPayment(int notificationId, Content content,
+                                            String amount, String currency, String senderName) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastPaymentAt > GROUP_WINDOW_MS) {
+            resetGroup();
+        }
+        lastPaymentAt = now;
+        addToGroup(amount, currency, senderName);
+
+        boolean ownPost = limiter.tryAcquire(now);
+        if (ownPost) {
+            notifySafely(notificationId, content);
+            trackPosted(notificationId);
+            posted++;
+        } else {
+            coalesced++;
+        }
+        if (groupCount > 1 || !ownPost) {
+            requestSummary(now);
+        }
+        return ownPost;
+    }
+
+    /**
+     * Shows the payments of one batched message in the group summary alone, with a single
+     * post, rather than spending a post per payment.
+     */
+    public synchronized void postBatch(List<PaymentPayload> payments) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastPaymentAt > GROUP_WINDOW_MS) {
+            resetGroup();
+        }
+        lastPaymentAt = now;
+        for (PaymentPayload payment : payments) {
+            addToGroup(payment.getAmount(), payment.getCurrency(), payment.getSenderName());
+        }
+        coalesced += payments.size();
+        requestSummary(now);
+    }
+
+    /**
+     * Re-posts an existing notification with non-essential changes, such as an attached image.
+     * The update is skipped when it would push the app over the rate limit.
+     */
+    public synchronized boolean postUpdate(int notificationId, Content content) {
+        if (!limiter.tryAcquire(SystemClock.elapsedRealtime())) {
+            suppressed++;
+            return false;
+        }
+        notifySafely(notificationId, content);
+        posted++;
+        return true;
+    }
+
+    /** Removes an acknowledged payment notification. Cancelling never needs a post slot. */
+    public synchronized void acknowledge(int notificationId) {
+        postedIds.remove(notificationId);
+        cancelSafely(notificationId);
+    }
+
+    /** Removes the summary and every payment notification still tracked, and starts a new group. */
+    public synchronized void acknowledgeAll() {
+        for (int notificationId : postedIds) {
+            cancelSafely(notificationId);
+        }
+        postedIds.clear();
+        handler.removeCallbacks(flushSummary);
+        flushScheduled = false;
+        summaryDirty = false;
+        cancelSafely(SUMMARY_NOTIFICATION_ID);
+        resetGroup();
+    }
+
+    public synchronized long getPosted() {
+        return posted;
+    }
+
+    public synchronized long getSummaryUpdates() {
+        return summaryUpdates;
+    }
+
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    public synchronized long getSuppressed() {
+        return suppressed;
+    }
+
+    public synchronized int getGroupSize() {
+        return groupCount;
+    }
+
+    private void resetGroup() {
+        summaryLines.clear();
+        groupCount = 0;
+        groupTotalMinor = 0;
+        groupCurrency = null;
+        groupMixed = false;
+    }
+
+    private void addToGroup(String amount, String currency, String senderName) {
+        long minor = Money.parseMinor(amount);
+        String unit = currency != null ? currency : "";
+        StringBuilder line = new StringBuilder(48).append(unit);
+        if (Money.isValid(minor)) {
+            Money.appendIndianGrouped(minor, line);
+        } else {
+            line.append(amount);
+        }
+        if (senderName != null && !senderName.isEmpty()) {
+            line.append(" from ").append(senderName);
+        }
+        summaryLines.addFirst(line.toString());
+        while (summaryLines.size() > MAX_SUMMARY_LINES) {
+            summaryLines.removeLast();
+        }
+
+        groupCount++;
+        if (groupCount == 1) {
+            groupCurrency = unit;
+        } else if (!unit.equals(groupCurrency)) {
+            groupMixed = true;
+        }
+        if (!Money.isValid(minor)) {
+            groupMixed = true;
+        } else if (!groupMixed) {
+            groupTotalMinor += minor;
+        }
+    }
+
+    private void requestSummary(long now) {
+        if (summaryDirty) {
+            // An update is already pending; this change rides along with it.
+            suppressed++;
+            return;
+        }
+        summaryDirty = true;
+        long delay = limiter.delayUntilAvailable(now);
+        if (delay == 0) {
+            flushSummaryLocked(now);
+        } else {
+            scheduleFlush(delay);
+        }
+    }
+
+    private void flushSummary() {
+        synchronized (this) {
+            flushScheduled = false;
+            flushSummaryLocked(SystemClock.elapsedRealtime());
+        }
+    }
+
+    private void flushSummaryLocked(long now) {
+        if (!summaryDirty) return;
+        if (!limiter.tryAcquire(now)) {
+            scheduleFlush(limiter.delayUntilAvailable(now));
+            return;
+        }
+        summaryDirty = false;
+        notifySafely(SUMMARY_NOTIFICATION_ID, this::buildSummary);
+        summaryUpdates++;
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        handler.postDelayed(flushSummary, Math.max(1, delayMs));
+    }
+
+    private Notification buildSummary() {
+        String title = groupCount == 1 ? "Payment received" : groupCount + " payments received";
+        String total = null;
+        String summaryText = null;
+        if (!groupMixed) {
+            total = Money.appendIndianGrouped(groupTotalMinor,
+                    new StringBuilder("Total ").append(groupCurrency)).toString();
+            summaryText = total;
+        } else if (groupCount > summaryLines.size()) {
+            summaryText = "+" + (groupCount - summaryLines.size()) + " more";
+        }
+        return NotificationFactory.getInstance(context).buildGroupSummary(title,
+                total != null ? total : summaryLines.peekFirst(), summaryLines, summaryText, groupCount);
+    }
+
+    private void trackPosted(int notificationId) {
+        postedIds.remove(notificationId);
+        postedIds.add(notificationId);
+        if (postedIds.size() > MAX_TRACKED_POSTS) {
+            Iterator<Integer> oldest = postedIds.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void cancelSafely(int notificationId) {
+        try {
+            notificationManager.cancel(notificationId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error cancelling notification: " + e.getMessage(), e);
+        }
+    }
+
+    private void notifySafely(int notificationId, Content content) {
+        try {
+            notificationManager.notify(notificationId, content.build());
+        } catch (SecurityException e) {
+            Log.e(TAG, "Failed to post notification: permission denied", e);
+        } catch (Exception e) {
+            Log.e(TAG, "Error posting notification: " + e.getMessage(), e);
+        }
+    }
+}
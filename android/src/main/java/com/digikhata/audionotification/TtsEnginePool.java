@@ -0,0 +1,298 @@
+package com.digikhata.audionotification;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps additional {@link TextToSpeech} instances for announcement languages other than
+ * the primary engine's, so switching language per announcement does not re-initialize
+ * an engine. Engines are created lazily, evicted least-recently-used when the pool is
+ * full and shut down after sitting idle. Language usage is counted in memory and
+ * persisted shortly after it changes, and on eviction and shutdown, so the most used
+ * languages can be warmed at startup.
+ * <p>
+ * Engines are created, evicted and shut down on the thread of the handler passed in, the
+ * same one that speaks through them, and the engine of the utterance in flight is never
+ * evicted, so an utterance cannot lose its engine before reporting that it finished.
+ */
+public class TtsEnginePool {
+    private static final String TAG = "TtsEnginePool";
+    private static final String PREFS_NAME = "native_audio_notification";
+    private static final String PREF_LANGUAGE_USAGE = "languageUsage";
+    private static final int MAX_ENGINES = 3;
+    private static final long IDLE_EVICT_MS = 10 * 60 * 1000;
+    private static final long SAVE_USAGE_DELAY_MS = 30 * 1000;
+
+    public enum State { INITIALIZING, READY, UNSUPPORTED }
+
+    /** A pooled engine bound to one language. */
+    public static class Engine implements TextToSpeech.OnInitListener {
+        private final String languageTag;
+        private volatile TextToSpeech tts;
+        private volatile State state = State.INITIALIZING;
+        private volatile String localeTag = "";
+        private volatile String voiceName = "";
+        private long lastUsedAt;
+
+        Engine(Context context, String languageTag, UtteranceProgressListener listener) {
+            this.languageTag = languageTag;
+            this.tts = new TextToSpeech(context, this);
+            this.tts.setOnUtteranceProgressListener(listener);
+        }
+
+        @Override
+        public void onInit(int status) {
+            try {
+                TextToSpeech engine = tts;
+                if (status != TextToSpeech.SUCCESS || engine == null) {
+                    state = State.UNSUPPORTED;
+                    return;
+                }
+                int result = engine.setLanguage(Locale.forLanguageTag(languageTag));
+                if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
+                    Log.w(TAG, "TTS language not available: " + languageTag);
+                    state = State.UNSUPPORTED;
+                    return;
+                }
+                Voice voice = engine.getVoice();
+                if (voice != null) {
+                    localeTag = voice.getLocale().toLanguageTag();
+                    voiceName = voice.getName();
+                } else {
+                    localeTag = languageTag;
+                }
+                state = State.READY;
+                Log.d(TAG, "TTS engine ready for " + languageTag);
+            } catch (Exception e) {
+                Log.e(TAG, "Error initializing TTS for " + languageTag + ": " + e.getMessage(), e);
+                state = State.UNSUPPORTED;
+            }
+        }
+
+        public TextToSpeech getTts() {
+            return tts;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getLocaleTag() {
+            return localeTag;
+        }
+
+        public String getVoiceName() {
+            return voiceName;
+        }
+
+        void shutdown() {
+            TextToSpeech engine = tts;
+            tts = null;
+            if (engine != null) {
+                engine.stop();
+                engine.shutdown();
+            }
+        }
+    }
+
+    private final Context context;
+    private final UtteranceProgressListener listener;
+    private final Handler handler;
+    private final Runnable evictIdle = this::evictIdle;
+    private final Runnable saveUsage = this::saveUsage;
+    // Access-ordered, so iteration starts at the least recently used engine.
+    private final LinkedHashMap<String, Engine> engines = new LinkedHashMap<>(8, 0.75f, true);
+    private final Map<String, Integer> usage = new HashMap<>();
+    private Engine speaking;
+    private boolean evictionScheduled;
+    private boolean usageDirty;
+
+    private long created;
+    private long evictions;
+
+    /** @param handler The handler of the thread that speaks through the pooled engines. */
+    public TtsEnginePool(Context context, UtteranceProgressListener listener, Handler handler) {
+        this.context = context;
+        this.listener = listener;
+        this.handler = handler;
+        loadUsage();
+    }
+
+    /**
+     * Returns the engine for a language, creating it if needed. A newly created engine is
+     * still initializing; callers should fall back to the primary engine until it is ready.
+     */
+    public synchronized Engine acquire(String languageTag) {
+        String key = normalize(languageTag);
+        Engine engine = engines.get(key);
+        if (engine == null) {
+            engine = create(key);
+        }
+        engine.lastUsedAt = SystemClock.elapsedRealtime();
+        recordUsage(key);
+        return engine;
+    }
+
+    /** Creates engines for the given languages ahead of their first announcement. */
+    public synchronized void warm(List<String> languageTags) {
+        for (String languageTag : languageTags) {
+            if (engines.size() >= MAX_ENGINES) return;
+            String key = normalize(languageTag);
+            if (!engines.containsKey(key)) {
+                create(key).lastUsedAt = SystemClock.elapsedRealtime();
+            }
+        }
+    }
+
+    /** @return Up to {@code limit} languages ordered by how often they were announced. */
+    public synchronized List<String> getTopLanguages(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(usage.entrySet());
+        Collections.sort(entries, (a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> top = new ArrayList<>(Math.min(limit, entries.size()));
+        for (int i = 0; i < entries.size() && top.size() < limit; i++) {
+            top.add(entries.get(i).getKey());
+        }
+        return top;
+    }
+
+    /**
+     * Pins the engine speaking the current utterance so it is not evicted until the
+     * utterance ends; null when nothing pooled is speaking.
+     */
+    public synchronized void setSpeaking(Engine engine) {
+        speaking = engine;
+    }
+
+    public synchronized void stopAll() {
+        speaking = null;
+        for (Engine engine : engines.values()) {
+            TextToSpeech tts = engine.getTts();
+            if (tts != null && tts.isSpeaking()) tts.stop();
+        }
+    }
+
+    public synchronized void shutdown() {
+        handler.removeCallbacks(evictIdle);
+        evictionScheduled = false;
+        speaking = null;
+        saveUsage();
+        for (Engine engine : engines.values()) {
+            engine.shutdown();
+        }
+        engines.clear();
+    }
+
+    public synchronized int getSize() {
+        return engines.size();
+    }
+
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private Engine create(String key) {
+        if (engines.size() >= MAX_ENGINES) {
+            Iterator<Map.Entry<String, Engine>> it = engines.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Engine> entry = it.next();
+                if (entry.getValue() == speaking) continue;
+                it.remove();
+                entry.getValue().shutdown();
+                evictions++;
+                Log.d(TAG, "Evicted TTS engine for " + entry.getKey());
+                saveUsage();
+                break;
+            }
+        }
+        Engine engine = new Engine(context, key, listener);
+        engines.put(key, engine);
+        created++;
+        scheduleEviction();
+        return engine;
+    }
+
+    private void scheduleEviction() {
+        if (evictionScheduled) return;
+        evictionScheduled = true;
+        handler.postDelayed(evictIdle, IDLE_EVICT_MS);
+    }
+
+    private void evictIdle() {
+        synchronized (this) {
+            evictionScheduled = false;
+            long now = SystemClock.elapsedRealtime();
+            Iterator<Map.Entry<String, Engine>> it = engines.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Engine> entry = it.next();
+                if (entry.getValue() != speaking && now - entry.getValue().lastUsedAt >= IDLE_EVICT_MS) {
+                    it.remove();
+                    entry.getValue().shutdown();
+                    evictions++;
+                    Log.d(TAG, "Shut down idle TTS engine for " + entry.getKey());
+                }
+            }
+            saveUsage();
+            if (!engines.isEmpty()) scheduleEviction();
+        }
+    }
+
+    private void recordUsage(String key) {
+        Integer count = usage.get(key);
+        usage.put(key, count == null ? 1 : count + 1);
+        if (usageDirty) return;
+        usageDirty = true;
+        handler.postDelayed(saveUsage, SAVE_USAGE_DELAY_MS);
+    }
+
+    private synchronized void saveUsage() {
+        if (!usageDirty) return;
+        usageDirty = false;
+        handler.removeCallbacks(saveUsage);
+        StringBuilder encoded = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : usage.entrySet()) {
+            if (encoded.length() > 0) encoded.append(',');
+            encoded.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        prefs().edit().putString(PREF_LANGUAGE_USAGE, encoded.toString()).apply();
+    }
+
+    private void loadUsage() {
+        String encoded = prefs().getString(PREF_LANGUAGE_USAGE, "");
+        if (encoded.isEmpty()) return;
+        for (String item : encoded.split(",")) {
+            int eq = item.indexOf('=');
+            if (eq <= 0) continue;
+            try {
+                usage.put(item.substring(0, eq), Integer.parseInt(item.substring(eq + 1)));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    static String normalize(String languageTag) {
+        return Locale.forLanguageTag(languageTag.replace('_', '-')).toLanguageTag();
+    }
+}
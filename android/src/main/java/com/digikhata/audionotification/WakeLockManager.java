@@ -0,0 +1,167 @@
+package com.digikhata.audionotification;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Single reference-counted partial wake lock shared by everything that plays or queues
+ * announcements. The lock is held only while at least one reference is outstanding and
+ * is force-released after a hard safety timeout in case a release is ever missed.
+ */
+public class WakeLockManager {
+    private static final String TAG = "WakeLockManager";
+    public static final long SAFETY_TIMEOUT_MS = 60000;
+    private static final long SCREEN_WAKE_MS = 3000;
+    private static WakeLockManager instance;
+
+    private final PowerManager.WakeLock wakeLock;
+    private final PowerManager.WakeLock screenLock;
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable safetyRelease = this::onSafetyTimeout;
+    private int references;
+    private long heldSince;
+    private long armedAt;
+    private long acquisitions;
+    private long requests;
+    private long safetyTimeouts;
+    private long totalHeldMs;
+    private long longestHoldMs;
+
+    @SuppressWarnings("deprecation")
+    private WakeLockManager(Context context) {
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "PaymentNotification::Announcement");
+            wakeLock.setReferenceCounted(false);
+            screenLock = powerManager.newWakeLock(
+                    PowerManager.SCREEN_BRIGHT_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP | PowerManager.ON_AFTER_RELEASE,
+                    "PaymentNotification::Screen");
+            screenLock.setReferenceCounted(false);
+        } else {
+            Log.w(TAG, "PowerManager service not available");
+            wakeLock = null;
+            screenLock = null;
+        }
+    }
+
+    public static synchronized WakeLockManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new WakeLockManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** Takes a reference, acquiring the wake lock if this is the first one. */
+    public synchronized void acquire() {
+        requests++;
+        references++;
+        if (references == 1) {
+            heldSince = SystemClock.elapsedRealtime();
+            acquisitions++;
+            try {
+                if (wakeLock != null) wakeLock.acquire(SAFETY_TIMEOUT_MS);
+            } catch (SecurityException e) {
+                Log.e(TAG, "Security exception acquiring wake lock: " + e.getMessage(), e);
+            }
+        }
+        armedAt = SystemClock.elapsedRealtime();
+        handler.removeCallbacks(safetyRelease);
+        handler.postDelayed(safetyRelease, SAFETY_TIMEOUT_MS);
+    }
+
+    /**
+     * Restarts the safety timeout of a lock that is still in use, so work that keeps the
+     * lock busy for longer than {@link #SAFETY_TIMEOUT_MS} is not cut off halfway. Until half
+     * the timeout has passed since it was last armed this is a no-op, so a burst of
+     * announcements does not turn into a PowerManager call each.
+     * @return {@code false} if no reference is outstanding and nothing was extended.
+     */
+    public synchronized boolean extend() {
+        if (references == 0) return false;
+        long now = SystemClock.elapsedRealtime();
+        if (now - armedAt < SAFETY_TIMEOUT_MS / 2) return true;
+        armedAt = now;
+        try {
+            if (wakeLock != null) wakeLock.acquire(SAFETY_TIMEOUT_MS);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Security exception extending wake lock: " + e.getMessage(), e);
+        }
+        handler.removeCallbacks(safetyRelease);
+        handler.postDelayed(safetyRelease, SAFETY_TIMEOUT_MS);
+        return true;
+    }
+
+    /** Drops a reference, releasing the wake lock when none remain. */
+    public synchronized void release() {
+        if (references == 0) return;
+        references--;
+        if (references == 0) {
+            handler.removeCallbacks(safetyRelease);
+            releaseLock();
+        }
+    }
+
+    /** Turns the screen on for a few seconds; the lock releases itself. */
+    public void wakeScreen() {
+        try {
+            if (screenLock != null && !powerManager.isInteractive()) {
+                screenLock.acquire(SCREEN_WAKE_MS);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error waking up screen: " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized boolean isHeld() {
+        return references > 0;
+    }
+
+    public synchronized int getReferences() {
+        return references;
+    }
+
+    public synchronized long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    public synchronized long getSafetyTimeouts() {
+        return safetyTimeouts;
+    }
+
+    /** @return Total time the lock has been held, including the current hold. */
+    public synchronized long getTotalHeldMs() {
+        return totalHeldMs + (references > 0 ? SystemClock.elapsedRealtime() - heldSince : 0);
+    }
+
+    public synchronized long getLongestHoldMs() {
+        return Math.max(longestHoldMs, references > 0 ? SystemClock.elapsedRealtime() - heldSince : 0);
+    }
+
+    private synchronized void onSafetyTimeout() {
+        if (references == 0) return;
+        Log.w(TAG, "Wake lock safety timeout with " + references + " references outstanding");
+        safetyTimeouts++;
+        references = 0;
+        releaseLock();
+    }
+
+    private void releaseLock() {
+        long held = SystemClock.elapsedRealtime() - heldSince;
+        totalHeldMs += held;
+        longestHoldMs = Math.max(longestHoldMs, held);
+        try {
+            if (wakeLock != null && wakeLock.isHeld()) wakeLock.release();
+        } catch (Exception e) {
+            Log.e(TAG, "Error releasing wake lock: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.digikhata.audionotification;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.os.Bundle;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Robolectric shadow standing in for the platform TTS engine. Every engine initializes
+ * successfully and "speaks" each utterance for a fixed time on a background thread, calling
+ * the progress listener the way a real engine does from its binder threads.
+ */
+@Implements(TextToSpeech.class)
+public class FakeTextToSpeech {
+    private static final ScheduledExecutorService ENGINE_THREAD = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "FakeTextToSpeech");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final List<String> spoken = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static volatile long speechMs = 200;
+    private static volatile long initMs = 50;
+
+    private final ArrayDeque<String[]> queue = new ArrayDeque<>();
+    private UtteranceProgressListener listener;
+    private String speaking;
+    private ScheduledFuture<?> speakingDone;
+    private boolean shutdown;
+
+    /** Sets how long each utterance plays and how long engines take to initialize. */
+    public static void configure(long speechMs, long initMs) {
+        FakeTextToSpeech.speechMs = speechMs;
+        FakeTextToSpeech.initMs = initMs;
+    }
+
+    /** @return The text of every utterance that started playing, in order. */
+    public static List<String> getSpoken() {
+        return spoken;
+    }
+
+    /** @return true if no engine has an utterance queued or playing. */
+    public static boolean isIdle() {
+        return inFlight.get() == 0;
+    }
+
+    public static void reset() {
+        spoken.clear();
+        inFlight.set(0);
+    }
+
+    @Implementation
+    protected void __constructor__(Context context, TextToSpeech.OnInitListener listener, String engine,
+                                   String packageName, boolean useFallback) {
+        ENGINE_THREAD.schedule(() -> listener.onInit(TextToSpeech.SUCCESS), initMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Implementation
+    protected synchronized int setOnUtteranceProgressListener(UtteranceProgressListener listener) {
+        this.listener = listener;
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected int setLanguage(Locale locale) {
+        return TextToSpeech.LANG_AVAILABLE;
+    }
+
+    @Implementation
+    protected Voice getVoice() {
+        return null;
+    }
+
+    @Implementation
+    protected int setAudioAttributes(AudioAttributes audioAttributes) {
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected int addSpeech(CharSequence text, File file) {
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected synchronized int speak(CharSequence text, int queueMode, Bundle params, String utteranceId) {
+        if (shutdown) return TextToSpeech.ERROR;
+        if (queueMode == TextToSpeech.QUEUE_FLUSH) stopLocked();
+        queue.add(new String[] { text.toString(), utteranceId });
+        inFlight.incrementAndGet();
+        if (speaking == null) ENGINE_THREAD.execute(this::playNext);
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected int synthesizeToFile(CharSequence text, Bundle params, File file, String utteranceId) {
+        // Nothing is written, so report the synthesis as failed and let the cache discard the entry.
+        ENGINE_THREAD.execute(() -> {
+            UtteranceProgressListener current = listener;
+            if (current != null) current.onError(utteranceId);
+        });
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected synchronized boolean isSpeaking() {
+        return speaking != null || !queue.isEmpty();
+    }
+
+    @Implementation
+    protected synchronized int stop() {
+        stopLocked();
+        return TextToSpeech.SUCCESS;
+    }
+
+    @Implementation
+    protected synchronized void shutdown() {
+        stopLocked();
+        shutdown = true;
+    }
+
+    private void stopLocked() {
+        inFlight.addAndGet(-queue.size());
+        queue.clear();
+        if (speaking == null) return;
+        String id = speaking;
+        speaking = null;
+        inFlight.decrementAndGet();
+        if (speakingDone != null) speakingDone.cancel(false);
+        UtteranceProgressListener current = listener;
+        if (current != null) ENGINE_THREAD.execute(() -> current.onStop(id, true));
+    }
+
+    private void playNext() {
+        String[] next;
+        UtteranceProgressListener current;
+        synchronized (this) {
+            if (speaking != null || queue.isEmpty()) return;
+            next = queue.poll();
+            speaking = next[1];
+            current = listener;
+            speakingDone = ENGINE_THREAD.schedule(() -> finish(next[1]), speechMs, TimeUnit.MILLISECONDS);
+        }
+        spoken.add(next[0]);
+        if (current != null) current.onStart(next[1]);
+    }
+
+    private void finish(String utteranceId) {
+        UtteranceProgressListener current;
+        synchronized (this) {
+            if (!utteranceId.equals(speaking)) return;
+            speaking = null;
+            current = listener;
+        }
+        if (current != null) current.onDone(utteranceId);
+        inFlight.decrementAndGet();
+        playNext();
+    }
+}
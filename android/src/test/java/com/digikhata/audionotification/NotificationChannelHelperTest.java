@@ -0,0 +1,89 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks that the stored channel signature follows the channel configuration and that an
+ * unchanged configuration is applied without calling NotificationManager.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class NotificationChannelHelperTest {
+    private Context context;
+    private NotificationManager notificationManager;
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        prefs = context.getSharedPreferences("native_audio_notification", Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+        NotificationChannelHelper.forgetVerifiedSignature();
+    }
+
+    private String storedSignature() {
+        return prefs.getString("channelSignature", null);
+    }
+
+    @Test
+    public void changedConfigurationUpdatesChannelAndSignature() {
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        String defaults = storedSignature();
+        assertNotNull(defaults);
+        NotificationChannel channel = notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID);
+        assertEquals(NotificationChannelHelper.DEFAULT_CHANNEL_NAME, channel.getName().toString());
+
+        NotificationChannelHelper.createPaymentNotificationChannel(context, null, "Payments", null, null, null);
+        String renamed = storedSignature();
+        assertNotEquals(defaults, renamed);
+        channel = notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID);
+        assertEquals("Payments", channel.getName().toString());
+
+        // Going back to the defaults is a change again, not a cache hit.
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        assertEquals(defaults, storedSignature());
+        channel = notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID);
+        assertEquals(NotificationChannelHelper.DEFAULT_CHANNEL_NAME, channel.getName().toString());
+    }
+
+    @Test
+    public void unchangedConfigurationSkipsNotificationManager() {
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        String signature = storedSignature();
+
+        // Deleting the channel behind the helper's back shows whether it looks again.
+        notificationManager.deleteNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID);
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        assertNull(notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID));
+
+        // After a restart the stored signature still short-circuits the setup.
+        NotificationChannelHelper.forgetVerifiedSignature();
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        assertNull(notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID));
+        assertEquals(signature, storedSignature());
+
+        // Without a stored signature the channel is created again.
+        prefs.edit().clear().commit();
+        NotificationChannelHelper.forgetVerifiedSignature();
+        NotificationChannelHelper.ensurePaymentNotificationChannel(context);
+        assertNotNull(notificationManager.getNotificationChannel(NotificationChannelHelper.DEFAULT_CHANNEL_ID));
+        assertEquals(signature, storedSignature());
+    }
+}
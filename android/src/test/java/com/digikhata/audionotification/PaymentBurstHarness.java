@@ -0,0 +1,230 @@
+package com.digikhata.audionotification;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Looper;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.google.firebase.messaging.RemoteMessage;
+
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for FCM: sends synthetic payment {@link RemoteMessage} bursts into
+ * {@link PaymentMessagingService#onMessageReceived} at a fixed rate and reports what the
+ * pipeline made of them. Run it under Robolectric with {@link FakeTextToSpeech}; the main
+ * looper's clock is advanced in step with real time so timers and latencies stay meaningful.
+ */
+public class PaymentBurstHarness {
+    private static final long TICK_MS = 10;
+    private static final long DRAIN_TIMEOUT_MS = 120000;
+
+    private final Context context;
+    private final PaymentMessagingService service;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong announcedPayments = new AtomicLong();
+    private final AtomicLong announcementErrors = new AtomicLong();
+    private int paymentsPerMinute = 30;
+    private int duplicateEvery;
+    private long transportMs = 300;
+
+    public PaymentBurstHarness(Context context, PaymentMessagingService service) {
+        this.context = context;
+        this.service = service;
+    }
+
+    /** @param paymentsPerMinute The arrival rate; a busy store sees 20 to 50. */
+    public PaymentBurstHarness setRate(int paymentsPerMinute) {
+        this.paymentsPerMinute = paymentsPerMinute;
+        return this;
+    }
+
+    /** @param every Redeliver every n-th message, as FCM does after a lost ack; 0 for none. */
+    public PaymentBurstHarness setDuplicateEvery(int every) {
+        this.duplicateEvery = every;
+        return this;
+    }
+
+    /** @param transportMs How long before receipt each message claims to have been sent. */
+    public PaymentBurstHarness setTransportMs(long transportMs) {
+        this.transportMs = transportMs;
+        return this;
+    }
+
+    /**
+     * Sends a burst and waits until the announcement queue and the engines are idle.
+     * @param payments The number of distinct payments to send.
+     */
+    public Report run(int payments) {
+        NativeAudioNotification audio = NativeAudioNotification.getInstance(context);
+        AnnouncementQueue queue = audio.getAnnouncementQueue();
+        PaymentDedupIndex dedup = PaymentMessagingService.getDedupIndex(context);
+        PaymentNotificationScheduler scheduler = PaymentNotificationScheduler.getInstance(context);
+        PaymentMetrics.get().reset();
+        announcedPayments.set(0);
+        announcementErrors.set(0);
+        PaymentEventEmitter.get().attach(listener);
+
+        Report report = new Report();
+        long duplicatesBefore = dedup.getDuplicates();
+        long droppedBefore = queue.getDropped();
+        long expiredBefore = queue.getExpired();
+        long coalescedBefore = queue.getCoalesced();
+        long postedBefore = scheduler.getPosted();
+        long summariesBefore = scheduler.getSummaryUpdates();
+        long foldedBefore = scheduler.getCoalesced();
+        long intervalMs = 60000L / Math.max(1, paymentsPerMinute);
+        long startedAt = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < payments; i++) {
+                RemoteMessage message = payment(i);
+                service.onMessageReceived(message);
+                report.sent++;
+                if (duplicateEvery > 0 && (i + 1) % duplicateEvery == 0) {
+                    service.onMessageReceived(message);
+                    report.sent++;
+                    report.duplicatesSent++;
+                }
+                advance(intervalMs);
+            }
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+            int idleTicks = 0;
+            while (idleTicks < 3 && System.currentTimeMillis() < deadline) {
+                advance(TICK_MS * 10);
+                boolean idle = audio.getActor().getPending() == 0 && queue.isEmpty() && FakeTextToSpeech.isIdle();
+                idleTicks = idle ? idleTicks + 1 : 0;
+            }
+            // Let the last event batch and summary flush through.
+            advance(500);
+        } finally {
+            PaymentEventEmitter.get().detach(listener);
+        }
+
+        report.elapsedMs = System.currentTimeMillis() - startedAt;
+        report.payments = payments;
+        report.duplicatesSkipped = dedup.getDuplicates() - duplicatesBefore;
+        report.announcedPayments = announcedPayments.get();
+        report.announcementErrors = announcementErrors.get();
+        report.queueDropped = queue.getDropped() - droppedBefore;
+        report.queueExpired = queue.getExpired() - expiredBefore;
+        report.queueCoalesced = queue.getCoalesced() - coalescedBefore;
+        report.notificationsPosted = scheduler.getPosted() - postedBefore;
+        report.summaryUpdates = scheduler.getSummaryUpdates() - summariesBefore;
+        report.foldedIntoSummary = scheduler.getCoalesced() - foldedBefore;
+        report.activeNotifications = shadowOf((NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE)).size();
+        report.utterances = FakeTextToSpeech.getSpoken().size();
+        report.latencies = PaymentMetrics.get().all();
+        return report;
+    }
+
+    private RemoteMessage payment(int index) {
+        Bundle bundle = new Bundle();
+        bundle.putString("google.message_id", "0:" + runId + "%" + index);
+        bundle.putLong("google.sent_time", System.currentTimeMillis() - transportMs);
+        bundle.putString("type", PaymentPayload.TYPE_PAYMENT);
+        bundle.putString("transactionId", "TXN-" + runId + "-" + index);
+        bundle.putString("amount", String.valueOf(100 + (index * 37) % 4900));
+        bundle.putString("currency", "₹");
+        bundle.putString("senderName", "Customer " + index);
+        return new RemoteMessage(bundle);
+    }
+
+    /** Lets real time pass while advancing the Robolectric clock and running the main looper. */
+    private static void advance(long ms) {
+        long remaining = ms;
+        while (remaining > 0) {
+            long step = Math.min(TICK_MS, remaining);
+            try {
+                Thread.sleep(step);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(step));
+            remaining -= step;
+        }
+    }
+
+    private final PaymentEventEmitter.Listener listener = new PaymentEventEmitter.Listener() {
+        @Override
+        public boolean hasListeners(String eventName) {
+            return PaymentEventEmitter.EVENT_ANNOUNCEMENT_STATE.equals(eventName);
+        }
+
+        @Override
+        public void notifyListeners(String eventName, JSObject data) {
+            try {
+                JSArray states = data.getJSArray("states");
+                for (int i = 0; i < states.length(); i++) {
+                    JSONObject state = states.getJSONObject(i);
+                    if (!"payment".equals(state.optString("kind")) && !"summary".equals(state.optString("kind"))) continue;
+                    if ("done".equals(state.getString("state"))) {
+                        announcedPayments.addAndGet(state.optInt("paymentCount", 1));
+                    } else if ("error".equals(state.getString("state"))) {
+                        announcementErrors.addAndGet(state.optInt("paymentCount", 1));
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Malformed announcement state event", e);
+            }
+        }
+    };
+
+    /** What one burst did to the pipeline. Counts are for this run only. */
+    public static class Report {
+        public int payments;
+        public int sent;
+        public int duplicatesSent;
+        public long duplicatesSkipped;
+        public long announcedPayments;
+        public long announcementErrors;
+        public long queueDropped;
+        public long queueExpired;
+        public long queueCoalesced;
+        public long notificationsPosted;
+        public long summaryUpdates;
+        public long foldedIntoSummary;
+        public int activeNotifications;
+        public int utterances;
+        public long elapsedMs;
+        public LatencyHistogram[] latencies;
+
+        /** @return Payments that were never spoken, individually or in a summary. */
+        public long getDroppedAnnouncements() {
+            return payments - announcedPayments;
+        }
+
+        /** @return Spoken payments per minute over the whole run, including the drain. */
+        public double getThroughputPerMinute() {
+            return elapsedMs > 0 ? announcedPayments * 60000.0 / elapsedMs : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(1024);
+            sb.append(String.format(Locale.US, "payments=%d sent=%d elapsed=%d ms throughput=%.1f/min%n",
+                    payments, sent, elapsedMs, getThroughputPerMinute()));
+            sb.append(String.format(Locale.US, "announced=%d droppedAnnouncements=%d errors=%d utterances=%d%n",
+                    announcedPayments, getDroppedAnnouncements(), announcementErrors, utterances));
+            sb.append(String.format(Locale.US, "duplicates sent=%d skipped=%d%n", duplicatesSent, duplicatesSkipped));
+            sb.append(String.format(Locale.US, "queue dropped=%d expired=%d coalesced=%d%n",
+                    queueDropped, queueExpired, queueCoalesced));
+            sb.append(String.format(Locale.US, "notifications posted=%d summaryUpdates=%d folded=%d active=%d%n",
+                    notificationsPosted, summaryUpdates, foldedIntoSummary, activeNotifications));
+            for (LatencyHistogram histogram : latencies) {
+                sb.append(String.format(Locale.US, "%-22s count=%d p50=%d p95=%d max=%d ms%n", histogram.getName(),
+                        histogram.getCount(), histogram.getPercentile(50), histogram.getPercentile(95), histogram.getMax()));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Burst load tests for the payment pipeline on a plain JVM. A failing assertion carries the
+ * run's {@link PaymentBurstHarness.Report}, so the whole run can be inspected from the failure.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, shadows = { FakeTextToSpeech.class })
+public class PaymentBurstLoadTest {
+    private Context context;
+    private PaymentMessagingService service;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        FakeTextToSpeech.reset();
+        service = Robolectric.setupService(PaymentMessagingService.class);
+    }
+
+    @After
+    public void tearDown() {
+        NativeAudioNotification.destroyInstance();
+        FakeTextToSpeech.configure(200, 50);
+    }
+
+    @Test
+    public void busyStoreRateIsAnnouncedWithoutDrops() {
+        // 50 payments per minute with 1 s announcements leaves the engine idle most of the time.
+        FakeTextToSpeech.configure(1000, 50);
+        PaymentBurstHarness.Report report = new PaymentBurstHarness(context, service)
+                .setRate(50)
+                .run(10);
+        String summary = report.toString();
+
+        assertEquals(summary, 0, report.getDroppedAnnouncements());
+        assertEquals(summary, 0, report.announcementErrors);
+        assertTrue(summary, report.notificationsPosted + report.foldedIntoSummary >= report.payments);
+    }
+
+    @Test
+    public void redeliveredMessagesAreNotAnnouncedTwice() {
+        FakeTextToSpeech.configure(100, 50);
+        PaymentBurstHarness.Report report = new PaymentBurstHarness(context, service)
+                .setRate(600)
+                .setDuplicateEvery(2)
+                .run(10);
+        String summary = report.toString();
+
+        assertEquals(summary, 5, report.duplicatesSent);
+        assertEquals(summary, report.duplicatesSent, report.duplicatesSkipped);
+        assertEquals(summary, report.payments, report.announcedPayments);
+    }
+
+    @Test
+    public void burstFasterThanSpeechIsCoalesced() {
+        // Announcements take longer than the gap between payments, so the queue has to fold them.
+        FakeTextToSpeech.configure(1500, 50);
+        PaymentBurstHarness.Report report = new PaymentBurstHarness(context, service)
+                .setRate(1200)
+                .run(20);
+        String summary = report.toString();
+
+        assertTrue(summary, report.queueCoalesced > 0);
+        assertTrue(summary, report.utterances < report.payments);
+        assertTrue(summary, report.announcedPayments > 0);
+        assertTrue(summary, report.announcedPayments + report.queueDropped <= report.payments);
+        assertTrue(summary, PaymentMetrics.get().receivedToSpeechStart.getCount() > 0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.digikhata.audionotification.jmh;
+
+import com.digikhata.audionotification.Announcement;
+import com.digikhata.audionotification.AnnouncementQueue;
+import com.digikhata.audionotification.AnnouncementText;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Enqueues a rush-hour burst of payments and drains the coalesced result. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnouncementQueueBenchmark {
+    @Param({ "1", "20", "50" })
+    public int burstSize;
+
+    @Benchmark
+    public void enqueueAndDrain(Blackhole bh) {
+        AnnouncementQueue queue = new AnnouncementQueue(AnnouncementQueue.DEFAULT_MAX_DEPTH, AnnouncementQueue.DEFAULT_COALESCE_THRESHOLD);
+        for (int i = 0; i < burstSize; i++) {
+            queue.offer(Announcement.payment(Integer.toString(100 + i * 25), "₹", "Customer " + i));
+        }
+        Announcement next;
+        while ((next = queue.poll(System.currentTimeMillis())) != null) {
+            bh.consume(AnnouncementText.forAnnouncement(next, "Sharma General Store"));
+        }
+    }
+}
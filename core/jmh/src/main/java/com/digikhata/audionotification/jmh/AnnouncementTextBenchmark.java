@@ -0,0 +1,63 @@
+package com.digikhata.audionotification.jmh;
+
+import com.digikhata.audionotification.Announcement;
+import com.digikhata.audionotification.AnnouncementText;
+import com.digikhata.audionotification.Money;
+import com.digikhata.audionotification.SpokenAmount;
+import com.digikhata.audionotification.TtsSynthesisCache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnouncementTextBenchmark {
+    private Announcement single;
+    private Announcement summary;
+
+    @Setup
+    public void setUp() {
+        single = Announcement.payment("1250.50", "₹", "Ramesh Kumar");
+        summary = Announcement.payment("1250.50", "₹", "Ramesh Kumar");
+        for (int i = 0; i < 9; i++) {
+            summary.absorb(Announcement.payment(Integer.toString(100 + i * 37), "₹", "Customer " + i));
+        }
+    }
+
+    @Benchmark
+    public String singlePayment() {
+        return AnnouncementText.forAnnouncement(single, "Sharma General Store");
+    }
+
+    @Benchmark
+    public String coalescedSummary() {
+        return AnnouncementText.forAnnouncement(summary, "Sharma General Store");
+    }
+
+    @Benchmark
+    public long parseAmount() {
+        return Money.parseMinor("12,50,000.75");
+    }
+
+    @Benchmark
+    public String spokenAmount() {
+        return SpokenAmount.toWords(125000075L, "₹");
+    }
+
+    @Benchmark
+    public String synthesisCacheKey() {
+        return TtsSynthesisCache.keyFor("₹ 1250.50 received from Ramesh Kumar on Sharma General Store", "en-IN", "en-in-x-ene-local");
+    }
+}
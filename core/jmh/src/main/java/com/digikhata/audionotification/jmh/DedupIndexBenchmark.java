@@ -0,0 +1,74 @@
+package com.digikhata.audionotification.jmh;
+
+import com.digikhata.audionotification.PaymentDedupIndex;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A burst of new payments followed by a full redelivery of the same burst, against
+ * both the persistent index and an in-memory one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DedupIndexBenchmark {
+    private static final int BURST = 50;
+
+    @Param({ "true", "false" })
+    public boolean persistent;
+
+    private File file;
+    private PaymentDedupIndex index;
+    private String[] ids;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = persistent ? File.createTempFile("dedup", ".bin") : null;
+        index = new PaymentDedupIndex(file, PaymentDedupIndex.DEFAULT_CAPACITY);
+        ids = new String[BURST];
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBurst() {
+        for (int i = 0; i < BURST; i++) {
+            ids[i] = "TXN" + (sequence++);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.close();
+        if (file != null) file.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * BURST)
+    public void burstThenRedelivery(Blackhole bh) {
+        for (String id : ids) {
+            bh.consume(index.checkAndRecord(id));
+        }
+        for (String id : ids) {
+            bh.consume(index.checkAndRecord(id));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.digikhata.audionotification.jmh;
+
+import com.digikhata.audionotification.PaymentBatch;
+import com.digikhata.audionotification.PaymentPayload;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadParsingBenchmark {
+    private Map<String, String> data;
+    private Map<String, String> sparseData;
+    private Map<String, String> batchData;
+
+    @Setup
+    public void setUp() {
+        data = new HashMap<>();
+        data.put("type", "payment");
+        data.put("senderName", "Ramesh Kumar");
+        data.put("amount", "1250.50");
+        data.put("currency", "₹");
+        data.put("transactionId", "TXN20241017123456789");
+        data.put("imageUrl", "https://cdn.example.com/avatars/ramesh.png");
+
+        sparseData = new HashMap<>();
+        sparseData.put("type", "payment");
+        sparseData.put("amount", "  ");
+
+        StringBuilder payments = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            payments.append("TXN2024101712345").append(i).append('|').append(100 + i).append(".50|Ramesh Kumar\n");
+        }
+        batchData = new HashMap<>();
+        batchData.put("type", "payment");
+        batchData.put("currency", "₹");
+        batchData.put(PaymentBatch.FIELD, payments.toString());
+    }
+
+    @Benchmark
+    public void parseFullPayload(Blackhole bh) {
+        PaymentPayload payload = PaymentPayload.fromData(data, null, null, "0:1697532000000%abc");
+        bh.consume(payload.getDedupKey());
+        bh.consume(payload.getNotificationId());
+    }
+
+    @Benchmark
+    public void parseSparsePayload(Blackhole bh) {
+        PaymentPayload payload = PaymentPayload.fromData(sparseData, null, null, "0:1697532000000%abc");
+        bh.consume(payload.getDedupKey());
+        bh.consume(payload.getNotificationId());
+    }
+
+    @Benchmark
+    public void parseBatchPayload(Blackhole bh) {
+        for (PaymentPayload payload : PaymentBatch.decode(batchData, "0:1697532000000%abc")) {
+            bh.consume(payload.getDedupKey());
+        }
+    }
+}
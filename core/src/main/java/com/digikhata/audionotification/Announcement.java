@@ -0,0 +1,257 @@
+package com.digikhata.audionotification;
+
+/**
+ * A unit of speech waiting in the {@link AnnouncementQueue}. Payment announcements keep
+ * their amount so that a backlog of them can be collapsed into one summary, and rank by
+ * the size of that amount when the queue picks what to speak next.
+ */
+public class Announcement {
+    /** Priority of free-text announcements; every payment ranks above them. */
+    public static final int PRIORITY_TEXT = 0;
+    private final String text;
+    private final String amount;
+    private final String currency;
+    private final String senderName;
+    private int paymentCount;
+    private long totalMinor;
+    private boolean mixedCurrency;
+    private long enqueuedAt;
+    private long deadline;
+    private long sentAt;
+    private long receivedAt;
+    private String language;
+    private int priority;
+    private long staleAt;
+    private boolean shortened;
+    private int attempts;
+    private int notificationId;
+    private String utteranceId;
+    private Announcement absorbedInto;
+    private int acknowledged;
+    private boolean cancelled;
+
+    private Announcement(String text, String amount, String currency, String senderName, int paymentCount) {
+        this.text = text;
+        this.amount = amount;
+        this.currency = currency;
+        this.senderName = senderName;
+        this.paymentCount = paymentCount;
+        this.totalMinor = amount != null ? Money.parseMinor(amount) : Money.INVALID;
+        this.priority = paymentCount > 0 ? priorityFor(totalMinor) : PRIORITY_TEXT;
+    }
+
+    /**
+     * @return The priority of a payment by order of magnitude: 1 below 100, up to 5 from one
+     *         lakh, in major units. Unparseable amounts rank lowest.
+     */
+    public static int priorityFor(long minor) {
+        if (!Money.isValid(minor)) return 1;
+        long major = Math.abs(minor) / 100;
+        int priority = 1;
+        for (long bound = 100; priority < 5 && major >= bound; bound *= 10) {
+            priority++;
+        }
+        return priority;
+    }
+
+    public static Announcement text(String text) {
+        return new Announcement(text, null, null, null, 0);
+    }
+
+    public static Announcement payment(String amount, String currency, String senderName) {
+        return new Announcement(null, amount, currency, senderName, 1);
+    }
+
+    /**
+     * Rebuilds an announcement from its stored fields, for the {@link AnnouncementRetryQueue}.
+     * @param totalMinor The summed amount of a summary, or {@link Money#INVALID}.
+     */
+    static Announcement restore(String text, String amount, String currency, String senderName,
+                                int paymentCount, long totalMinor) {
+        Announcement announcement = new Announcement(text, amount, currency, senderName, Math.max(0, paymentCount));
+        if (paymentCount > 1) {
+            announcement.totalMinor = totalMinor;
+            announcement.priority = priorityFor(totalMinor);
+        }
+        return announcement;
+    }
+
+    public boolean isPayment() {
+        return paymentCount > 0;
+    }
+
+    public boolean isSummary() {
+        return paymentCount > 1;
+    }
+
+    /**
+     * Folds another payment announcement into this one.
+     * @param other A payment announcement that will no longer be spoken on its own.
+     */
+    public void absorb(Announcement other) {
+        if (!other.isPayment()) return;
+        other.absorbedInto = this;
+        paymentCount += other.paymentCount;
+        acknowledged += other.acknowledged;
+        if (deadline > 0) deadline = other.deadline > 0 ? Math.max(deadline, other.deadline) : 0;
+        if (staleAt > 0) staleAt = other.staleAt > 0 ? Math.max(staleAt, other.staleAt) : 0;
+        totalMinor = Money.isValid(totalMinor) && Money.isValid(other.totalMinor) ? totalMinor + other.totalMinor : Money.INVALID;
+        mixedCurrency |= other.mixedCurrency || (currency != null ? !currency.equals(other.currency) : other.currency != null);
+        if (language != null && !language.equals(other.language)) language = null;
+        priority = Math.max(Math.max(priority, other.priority), priorityFor(getTotalMinor()));
+    }
+
+    /**
+     * Attaches pipeline timestamps used for latency metrics.
+     * @param sentAt The server send time from FCM, or 0 if unknown.
+     * @param receivedAt The wall-clock time the message was received, or 0 if unknown.
+     */
+    public void setTiming(long sentAt, long receivedAt) {
+        this.sentAt = sentAt;
+        this.receivedAt = receivedAt;
+    }
+
+    /** @return The BCP 47 language tag to speak in, or null for the default engine language. */
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language != null && !language.trim().isEmpty() ? language.trim() : null;
+    }
+
+    public long getSentAt() {
+        return sentAt;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /** @return The server send time if known, else the receive time, or 0 if neither is known. */
+    public long getOriginAt() {
+        return sentAt > 0 ? sentAt : receivedAt;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(long enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    /** @return The wall-clock time after which the announcement is no longer worth speaking, or 0 for none. */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public boolean isExpired(long now) {
+        return deadline > 0 && now > deadline;
+    }
+
+    /** @return The wall-clock time after which only a shortened form is worth speaking, or 0 for none. */
+    public long getStaleAt() {
+        return staleAt;
+    }
+
+    public void setStaleAt(long staleAt) {
+        this.staleAt = staleAt;
+    }
+
+    public boolean isStale(long now) {
+        return staleAt > 0 && now > staleAt;
+    }
+
+    /** @return Whether the announcement was picked after going stale and should be spoken briefly. */
+    public boolean isShortened() {
+        return shortened;
+    }
+
+    public void setShortened(boolean shortened) {
+        this.shortened = shortened;
+    }
+
+    /** @return How many times playing this announcement has failed. */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /** @return The notification showing this payment, or 0 if it has none of its own. */
+    public int getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(int notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    /** @return The utterance this announcement was last handed to the engine as, or null if never. */
+    public String getUtteranceId() {
+        return utteranceId;
+    }
+
+    public void setUtteranceId(String utteranceId) {
+        this.utteranceId = utteranceId;
+    }
+
+    /** @return The announcement that now speaks this payment: the summary it was folded into, or itself. */
+    public Announcement resolve() {
+        Announcement live = this;
+        while (live.absorbedInto != null) {
+            live = live.absorbedInto;
+        }
+        return live;
+    }
+
+    /**
+     * Records that the user acknowledged one of the payments spoken by this announcement.
+     * @return true once every payment has been acknowledged and the announcement is cancelled.
+     */
+    public boolean acknowledgePayment() {
+        if (++acknowledged >= paymentCount) cancelled = true;
+        return cancelled;
+    }
+
+    /** @return Whether the announcement was acknowledged and should no longer be spoken. */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public int getPaymentCount() {
+        return paymentCount;
+    }
+
+    /** @return The summed amount in minor units, or {@link Money#INVALID} if any amount was unparseable or currencies differ. */
+    public long getTotalMinor() {
+        return mixedCurrency ? Money.INVALID : totalMinor;
+    }
+}
@@ -0,0 +1,263 @@
+package com.digikhata.audionotification;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bounded queue of pending announcements. Once more payments are waiting than the
+ * coalesce threshold allows, they are collapsed into a single summary announcement so
+ * the spoken backlog stays short without losing any payment.
+ * <p>
+ * Payments are scheduled by age from their server send time: past the stale age they are
+ * spoken in a shortened form, past the expiry age they are dropped. {@link #poll(long)}
+ * returns the highest priority announcement, then the earliest deadline, then the oldest.
+ */
+public class AnnouncementQueue {
+    public static final int DEFAULT_MAX_DEPTH = 20;
+    public static final int DEFAULT_COALESCE_THRESHOLD = 3;
+    public static final long DEFAULT_STALE_AFTER_MS = 15000;
+    public static final long DEFAULT_EXPIRE_AFTER_MS = 60000;
+
+    private final ArrayDeque<Announcement> pending = new ArrayDeque<>();
+    private int maxDepth;
+    private int coalesceThreshold;
+    private long staleAfterMs = DEFAULT_STALE_AFTER_MS;
+    private long expireAfterMs = DEFAULT_EXPIRE_AFTER_MS;
+    private long enqueued;
+    private long coalesced;
+    private long dropped;
+    private long expired;
+    private long preempted;
+    private long shortened;
+    private long cancelled;
+
+    public AnnouncementQueue(int maxDepth, int coalesceThreshold) {
+        setLimits(maxDepth, coalesceThreshold);
+    }
+
+    /**
+     * Updates the queue limits.
+     * @param maxDepth The maximum number of pending announcements (at least 1).
+     * @param coalesceThreshold The number of pending payments above which they are summarized (at least 1).
+     */
+    public synchronized void setLimits(int maxDepth, int coalesceThreshold) {
+        this.maxDepth = Math.max(1, maxDepth);
+        this.coalesceThreshold = Math.max(1, Math.min(coalesceThreshold, this.maxDepth));
+    }
+
+    /**
+     * Updates the payment age limits, measured from the server send time.
+     * @param staleAfterMs The age after which a payment is spoken in shortened form.
+     * @param expireAfterMs The age after which a payment is no longer announced (at least 1 second).
+     */
+    public synchronized void setAgeLimits(long staleAfterMs, long expireAfterMs) {
+        this.expireAfterMs = Math.max(1000, expireAfterMs);
+        this.staleAfterMs = Math.max(0, Math.min(staleAfterMs, this.expireAfterMs));
+    }
+
+    /**
+     * Adds an announcement. Payments are never rejected for space: if the queue is full they
+     * are coalesced with the pending payments, or take the place of the oldest free text if
+     * no payment is pending. Free text is dropped when the queue is full, and payments
+     * already past their expiry age are dropped on arrival.
+     * @return false if the announcement was dropped.
+     */
+    public synchronized boolean offer(Announcement announcement) {
+        if (announcement.isCancelled()) return false;
+        long now = System.currentTimeMillis();
+        schedule(announcement, now);
+        if (announcement.isExpired(now)) {
+            expired++;
+            return false;
+        }
+        if (pending.size() >= maxDepth) {
+            if (!announcement.isPayment()) {
+                dropped++;
+                return false;
+            }
+            coalescePayments();
+            if (pending.size() >= maxDepth) {
+                Announcement payment = oldestPayment();
+                if (payment != null) {
+                    payment.absorb(announcement);
+                    coalesced++;
+                    return true;
+                }
+                pending.remove(oldestText());
+                dropped++;
+            }
+        }
+        if (announcement.getEnqueuedAt() == 0) announcement.setEnqueuedAt(now);
+        pending.addLast(announcement);
+        enqueued++;
+        if (announcement.isPayment() && countPayments() > coalesceThreshold) {
+            coalescePayments();
+        }
+        return true;
+    }
+
+    public synchronized Announcement poll() {
+        return pending.pollFirst();
+    }
+
+    /**
+     * Returns the most relevant announcement whose deadline has not passed, discarding
+     * expired and cancelled ones. A stale payment is marked {@link Announcement#isShortened() shortened}.
+     */
+    public synchronized Announcement poll(long now) {
+        Announcement best = null;
+        int bestIndex = 0;
+        int index = 0;
+        Iterator<Announcement> it = pending.iterator();
+        while (it.hasNext()) {
+            Announcement a = it.next();
+            if (a.isCancelled()) {
+                it.remove();
+                cancelled++;
+                continue;
+            }
+            if (a.isExpired(now)) {
+                it.remove();
+                expired++;
+                continue;
+            }
+            if (best == null || ranksBefore(a, best)) {
+                best = a;
+                bestIndex = index;
+            }
+            index++;
+        }
+        if (best == null) return null;
+        pending.removeFirstOccurrence(best);
+        // Every announcement still waiting ahead of the chosen one has been overtaken.
+        preempted += bestIndex;
+        if (best.isStale(now)) {
+            best.setShortened(true);
+            shortened++;
+        }
+        return best;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized int clear() {
+        int size = pending.size();
+        pending.clear();
+        return size;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public synchronized int getCoalesceThreshold() {
+        return coalesceThreshold;
+    }
+
+    public synchronized long getEnqueued() {
+        return enqueued;
+    }
+
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized long getExpired() {
+        return expired;
+    }
+
+    public synchronized long getPreempted() {
+        return preempted;
+    }
+
+    public synchronized long getShortened() {
+        return shortened;
+    }
+
+    /** @return Announcements acknowledged by the user before they were spoken. */
+    public synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    public synchronized long getStaleAfterMs() {
+        return staleAfterMs;
+    }
+
+    public synchronized long getExpireAfterMs() {
+        return expireAfterMs;
+    }
+
+    /** Derives a payment's stale time and deadline from its send time. */
+    private void schedule(Announcement announcement, long now) {
+        long origin = announcement.getOriginAt();
+        if (!announcement.isPayment() || origin <= 0) return;
+        // A server clock ahead of the device would otherwise extend the deadline.
+        origin = Math.min(origin, now);
+        long expireAt = origin + expireAfterMs;
+        long deadline = announcement.getDeadline();
+        announcement.setDeadline(deadline > 0 ? Math.min(deadline, expireAt) : expireAt);
+        announcement.setStaleAt(origin + staleAfterMs);
+    }
+
+    private static boolean ranksBefore(Announcement a, Announcement b) {
+        if (a.getPriority() != b.getPriority()) return a.getPriority() > b.getPriority();
+        long aDeadline = a.getDeadline() > 0 ? a.getDeadline() : Long.MAX_VALUE;
+        long bDeadline = b.getDeadline() > 0 ? b.getDeadline() : Long.MAX_VALUE;
+        return aDeadline < bDeadline;
+    }
+
+    private int countPayments() {
+        int count = 0;
+        for (Announcement a : pending) {
+            if (a.isPayment() && !a.isCancelled()) count++;
+        }
+        return count;
+    }
+
+    private Announcement oldestPayment() {
+        for (Announcement a : pending) {
+            if (a.isPayment() && !a.isCancelled()) return a;
+        }
+        return null;
+    }
+
+    private Announcement oldestText() {
+        for (Announcement a : pending) {
+            if (!a.isPayment()) return a;
+        }
+        return pending.peekFirst();
+    }
+
+    /** Merges every pending payment into the oldest one and returns how many were folded in. */
+    private int coalescePayments() {
+        Announcement head = null;
+        int merged = 0;
+        Iterator<Announcement> it = pending.iterator();
+        while (it.hasNext()) {
+            Announcement a = it.next();
+            if (!a.isPayment()) continue;
+            if (a.isCancelled()) {
+                it.remove();
+                cancelled++;
+            } else if (head == null) {
+                head = a;
+            } else {
+                head.absorb(a);
+                it.remove();
+                merged++;
+            }
+        }
+        coalesced += merged;
+        return merged;
+    }
+}
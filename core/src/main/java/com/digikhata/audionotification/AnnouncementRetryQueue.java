@@ -0,0 +1,264 @@
+package com.digikhata.audionotification;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds announcements that failed to play so they can be retried once the engine is
+ * healthy again. Each failure pushes the next attempt back exponentially; announcements
+ * older than the maximum age, or out of attempts, are abandoned.
+ * <p>
+ * The queue is small and rewritten in full to a file after every change, so pending
+ * retries survive process death. Nothing here waits: the caller asks for
+ * {@link #nextDueAt()} and arms its own timer.
+ */
+public class AnnouncementRetryQueue {
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final long BASE_DELAY_MS = 1000;
+    public static final long MAX_DELAY_MS = 16000;
+    public static final int MAX_ATTEMPTS = 5;
+    private static final int MAGIC = 0x41525131;
+
+    private static final class Entry {
+        final Announcement announcement;
+        final long dueAt;
+
+        Entry(Announcement announcement, long dueAt) {
+            this.announcement = announcement;
+            this.dueAt = dueAt;
+        }
+    }
+
+    private final File file;
+    private int capacity;
+    private final List<Entry> entries = new ArrayList<>();
+    private long maxAgeMs;
+
+    private long scheduled;
+    private long retried;
+    private long abandoned;
+    private long writeErrors;
+
+    /**
+     * @param file The file pending retries are kept in, or null to keep them in memory only.
+     * @param maxAgeMs How long after its origin an announcement may still be retried.
+     */
+    public AnnouncementRetryQueue(File file, int capacity, long maxAgeMs) {
+        this.file = file;
+        this.capacity = Math.max(1, capacity);
+        this.maxAgeMs = maxAgeMs;
+        load();
+    }
+
+    /**
+     * Schedules another attempt for an announcement that failed.
+     * @return false if the announcement is too old or out of attempts and was abandoned.
+     */
+    public synchronized boolean add(Announcement announcement, long now) {
+        int attempts = announcement.getAttempts() + 1;
+        if (attempts > MAX_ATTEMPTS || isTooOld(announcement, now)) {
+            abandoned++;
+            return false;
+        }
+        announcement.setAttempts(attempts);
+        long delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << (attempts - 1));
+        if (entries.size() >= capacity) {
+            // Keep the newest: the oldest is the closest to its maximum age anyway.
+            entries.remove(oldestIndex());
+            abandoned++;
+        }
+        entries.add(new Entry(announcement, now + delay));
+        scheduled++;
+        save();
+        return true;
+    }
+
+    /**
+     * Hands over announcements that never failed, such as those still queued when the engine
+     * shuts down. They are due at once, keep their attempt count and are written with a
+     * single save. Announcements too old to retry, and the oldest ones beyond the capacity,
+     * are counted as abandoned.
+     */
+    public synchronized void addAll(List<Announcement> announcements, long now) {
+        for (Announcement announcement : announcements) {
+            if (isTooOld(announcement, now)) {
+                abandoned++;
+                continue;
+            }
+            if (entries.size() >= capacity) {
+                entries.remove(oldestIndex());
+                abandoned++;
+            }
+            entries.add(new Entry(announcement, now));
+            scheduled++;
+        }
+        if (!announcements.isEmpty()) save();
+    }
+
+    /**
+     * Removes and returns the announcements whose next attempt is due, abandoning those that
+     * have grown too old while waiting.
+     */
+    public synchronized List<Announcement> takeDue(long now) {
+        if (entries.isEmpty()) return Collections.emptyList();
+        List<Announcement> due = new ArrayList<>();
+        boolean changed = false;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (isTooOld(entry.announcement, now)) {
+                entries.remove(i);
+                abandoned++;
+                changed = true;
+            } else if (entry.dueAt <= now) {
+                entries.remove(i);
+                due.add(0, entry.announcement);
+                retried++;
+                changed = true;
+            }
+        }
+        if (changed) save();
+        return due;
+    }
+
+    /** @return The earliest time an attempt is due, or -1 if nothing is waiting. */
+    public synchronized long nextDueAt() {
+        long next = -1;
+        for (Entry entry : entries) {
+            if (next < 0 || entry.dueAt < next) next = entry.dueAt;
+        }
+        return next;
+    }
+
+    public synchronized int clear() {
+        int size = entries.size();
+        if (size > 0) {
+            entries.clear();
+            save();
+        }
+        return size;
+    }
+
+    /** Changes how many announcements are kept; a smaller capacity applies to later additions. */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public synchronized void setMaxAgeMs(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public synchronized long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getScheduled() {
+        return scheduled;
+    }
+
+    public synchronized long getRetried() {
+        return retried;
+    }
+
+    public synchronized long getAbandoned() {
+        return abandoned;
+    }
+
+    public synchronized long getWriteErrors() {
+        return writeErrors;
+    }
+
+    private boolean isTooOld(Announcement announcement, long now) {
+        long origin = announcement.getOriginAt();
+        return maxAgeMs > 0 && origin > 0 && now - origin > maxAgeMs;
+    }
+
+    private int oldestIndex() {
+        int oldest = 0;
+        for (int i = 1; i < entries.size(); i++) {
+            if (entries.get(i).announcement.getOriginAt() < entries.get(oldest).announcement.getOriginAt()) oldest = i;
+        }
+        return oldest;
+    }
+
+    private void save() {
+        if (file == null) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory()) parent.mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    Announcement a = entry.announcement;
+                    writeString(out, a.getText());
+                    writeString(out, a.getAmount());
+                    writeString(out, a.getCurrency());
+                    writeString(out, a.getSenderName());
+                    writeString(out, a.getLanguage());
+                    out.writeInt(a.getPaymentCount());
+                    out.writeLong(a.getTotalMinor());
+                    out.writeLong(a.getSentAt());
+                    out.writeLong(a.getReceivedAt());
+                    out.writeInt(a.getAttempts());
+                    out.writeLong(entry.dueAt);
+                }
+            }
+            if (!tmp.renameTo(file)) throw new IOException("rename failed");
+        } catch (IOException e) {
+            writeErrors++;
+            tmp.delete();
+        }
+    }
+
+    private void load() {
+        if (file == null || !file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) return;
+            int count = Math.min(in.readInt(), capacity);
+            for (int i = 0; i < count; i++) {
+                String text = readString(in);
+                String amount = readString(in);
+                String currency = readString(in);
+                String senderName = readString(in);
+                String language = readString(in);
+                int paymentCount = in.readInt();
+                long totalMinor = in.readLong();
+                long sentAt = in.readLong();
+                long receivedAt = in.readLong();
+                int attempts = in.readInt();
+                long dueAt = in.readLong();
+                Announcement announcement = Announcement.restore(text, amount, currency, senderName, paymentCount, totalMinor);
+                announcement.setLanguage(language);
+                announcement.setTiming(sentAt, receivedAt);
+                announcement.setAttempts(attempts);
+                entries.add(new Entry(announcement, dueAt));
+            }
+        } catch (IOException e) {
+            // A torn file only loses the retries it held.
+            entries.clear();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
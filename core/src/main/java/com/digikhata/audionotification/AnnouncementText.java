@@ -0,0 +1,102 @@
+package com.digikhata.audionotification;
+
+/**
+ * Builds the sentences spoken for payment announcements. Amounts are spoken as words
+ * (see {@link SpokenAmount}) so the engine never has to normalize raw digits.
+ */
+public final class AnnouncementText {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(160));
+
+    private AnnouncementText() {}
+
+    public static String payment(String amount, String currency, String senderName, String merchantBusiness) {
+        StringBuilder sb = buffer();
+        appendAmount(Money.parseMinor(amount), amount, currency, sb);
+        sb.append(" received ");
+        return appendSender(senderName, merchantBusiness, sb).toString();
+    }
+
+    /**
+     * @return The part of a payment sentence after "received", e.g. "from Ravi on Shop", for
+     *         announcers that speak the amount from prerecorded clips.
+     */
+    public static String paymentSender(String senderName, String merchantBusiness) {
+        return appendSender(senderName, merchantBusiness, buffer()).toString();
+    }
+
+    private static StringBuilder appendSender(String senderName, String merchantBusiness, StringBuilder sb) {
+        return sb.append("from ").append(senderName != null ? senderName : "customer")
+                .append(" on ").append(merchantBusiness);
+    }
+
+    /** @return The sentence for an announcement, without sender and business if it was {@link Announcement#isShortened() shortened}. */
+    public static String forAnnouncement(Announcement announcement, String merchantBusiness) {
+        if (!announcement.isPayment()) {
+            return announcement.getText();
+        }
+        if (announcement.isShortened()) {
+            return shortForm(announcement);
+        }
+        if (!announcement.isSummary()) {
+            return payment(announcement.getAmount(), announcement.getCurrency(), announcement.getSenderName(), merchantBusiness);
+        }
+        long total = announcement.getTotalMinor();
+        StringBuilder sb = buffer();
+        SpokenAmount.appendNumber(announcement.getPaymentCount(), sb).append(" payments");
+        if (Money.isValid(total)) {
+            sb.append(" totalling ");
+            SpokenAmount.appendWords(total, announcement.getCurrency(), sb);
+        }
+        sb.append(" received on ").append(merchantBusiness);
+        return sb.toString();
+    }
+
+    /**
+     * @return The spoken end-of-day summary, e.g. "Shop received twelve payments totalling
+     *         ... today".
+     * @param totalMinor The day's total in minor units, or {@link Money#INVALID} if unknown.
+     */
+    public static String daySummary(int count, long totalMinor, String currency, String merchantBusiness) {
+        StringBuilder sb = buffer().append(merchantBusiness);
+        if (count == 0) {
+            return sb.append(" has received no payments today").toString();
+        }
+        sb.append(" received ");
+        SpokenAmount.appendNumber(count, sb).append(count == 1 ? " payment" : " payments");
+        if (Money.isValid(totalMinor) && totalMinor > 0) {
+            sb.append(" totalling ");
+            SpokenAmount.appendWords(totalMinor, currency, sb);
+        }
+        return sb.append(" today").toString();
+    }
+
+    private static String shortForm(Announcement announcement) {
+        StringBuilder sb = buffer();
+        if (announcement.isSummary()) {
+            SpokenAmount.appendNumber(announcement.getPaymentCount(), sb).append(" payments");
+            long total = announcement.getTotalMinor();
+            if (Money.isValid(total)) {
+                sb.append(" totalling ");
+                SpokenAmount.appendWords(total, announcement.getCurrency(), sb);
+            }
+        } else {
+            appendAmount(Money.parseMinor(announcement.getAmount()), announcement.getAmount(), announcement.getCurrency(), sb);
+        }
+        return sb.append(" received").toString();
+    }
+
+    private static void appendAmount(long minor, String rawAmount, String currency, StringBuilder sb) {
+        if (Money.isValid(minor)) {
+            SpokenAmount.appendWords(minor, currency, sb);
+        } else {
+            // Unparseable amounts are spoken as sent rather than dropped.
+            sb.append(currency).append(' ').append(rawAmount);
+        }
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return sb;
+    }
+}
@@ -0,0 +1,136 @@
+package com.digikhata.audionotification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bank of prerecorded 16-bit mono PCM clips, one per spoken word, read from a single
+ * buffer that is normally memory-mapped from an asset. Each clip is exposed as a
+ * read-only slice created once at load, so playback never copies or allocates.
+ * <p>
+ * Layout, big-endian header: magic {@code CLIP}, version, sample rate, clip count, then per
+ * clip a UTF-8 name (u16 length + bytes), data offset and byte length, then the PCM data.
+ */
+public class ClipBank {
+    public static final int MAGIC = 0x434C4950;
+    public static final int VERSION = 1;
+    public static final int BYTES_PER_FRAME = 2;
+
+    private final int sampleRate;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final ByteBuffer[] clips;
+    private final int[] frames;
+
+    private ClipBank(int sampleRate, int count) {
+        this.sampleRate = sampleRate;
+        this.clips = new ByteBuffer[count];
+        this.frames = new int[count];
+    }
+
+    /**
+     * Parses a bank.
+     * @param data The whole bank, positioned at its start; typically a mapped asset.
+     * @throws IllegalArgumentException if the data is not a valid bank.
+     */
+    public static ClipBank parse(ByteBuffer data) {
+        ByteBuffer header = data.duplicate();
+        try {
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not a clip bank");
+            }
+            int sampleRate = header.getInt();
+            int count = header.getInt();
+            if (sampleRate <= 0 || count < 0 || count > 4096) {
+                throw new IllegalArgumentException("Invalid clip bank header");
+            }
+            ClipBank bank = new ClipBank(sampleRate, count);
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[header.getShort() & 0xFFFF];
+                header.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                offsets[i] = header.getInt();
+                lengths[i] = header.getInt();
+            }
+            int dataStart = header.position();
+            for (int i = 0; i < count; i++) {
+                int start = dataStart + offsets[i];
+                if (offsets[i] < 0 || lengths[i] < 0 || lengths[i] % BYTES_PER_FRAME != 0
+                        || start + (long) lengths[i] > header.limit()) {
+                    throw new IllegalArgumentException("Clip out of bounds: " + names[i]);
+                }
+                ByteBuffer clip = data.duplicate();
+                clip.position(start).limit(start + lengths[i]);
+                bank.clips[i] = clip.slice().asReadOnlyBuffer();
+                bank.frames[i] = lengths[i] / BYTES_PER_FRAME;
+                bank.indexByName.put(names[i], i);
+            }
+            return bank;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated clip bank", e);
+        }
+    }
+
+    /**
+     * Encodes clips into the bank layout, for build tooling and tests.
+     * @param clips Clip name to 16-bit little-endian mono PCM.
+     */
+    public static byte[] encode(int sampleRate, Map<String, byte[]> clips) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sampleRate);
+        out.writeInt(clips.size());
+        int offset = 0;
+        for (Map.Entry<String, byte[]> clip : clips.entrySet()) {
+            byte[] name = clip.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeInt(offset);
+            out.writeInt(clip.getValue().length);
+            offset += clip.getValue().length;
+        }
+        for (byte[] pcm : clips.values()) {
+            out.write(pcm);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** @return The clip index for a word, or -1 if the bank has no recording of it. */
+    public int indexOf(String name) {
+        Integer index = name != null ? indexByName.get(name) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return The clip's PCM, rewound to its start. The same buffer is returned on every
+     *         call, so it must only be consumed by one player at a time.
+     */
+    public ByteBuffer clip(int index) {
+        ByteBuffer clip = clips[index];
+        clip.rewind();
+        return clip;
+    }
+
+    public int getFrames(int index) {
+        return frames[index];
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getClipCount() {
+        return clips.length;
+    }
+}
@@ -0,0 +1,114 @@
+package com.digikhata.audionotification;
+
+/**
+ * Assembles the clip sequence for a payment amount, soundbox style: the amount in
+ * Indian numbering words followed by "received", e.g. "five hundred rupees received".
+ * Word lookups are resolved against the {@link ClipBank} once, and sequences are written
+ * into a caller-supplied array, so building a phrase does not allocate.
+ */
+public class ClipPhrase {
+    /** Enough for the longest amount the announcement path accepts plus the trailing words. */
+    public static final int MAX_CLIPS = 48;
+    public static final String RECEIVED = "received";
+    private static final String[] ONES = {
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+            "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen", "nineteen"
+    };
+    private static final String[] TENS = {
+            "", "", "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty", "ninety"
+    };
+    private static final long CRORE = 10_000_000L;
+    private static final long LAKH = 100_000L;
+
+    private final ClipBank bank;
+    private final int[] ones = new int[ONES.length];
+    private final int[] tens = new int[TENS.length];
+    private final int hundred;
+    private final int thousand;
+    private final int lakh;
+    private final int crore;
+    private final int and;
+    private final int received;
+
+    public ClipPhrase(ClipBank bank) {
+        this.bank = bank;
+        for (int i = 0; i < ONES.length; i++) ones[i] = bank.indexOf(ONES[i]);
+        for (int i = 0; i < TENS.length; i++) tens[i] = bank.indexOf(TENS[i]);
+        hundred = bank.indexOf("hundred");
+        thousand = bank.indexOf("thousand");
+        lakh = bank.indexOf("lakh");
+        crore = bank.indexOf("crore");
+        and = bank.indexOf("and");
+        received = bank.indexOf(RECEIVED);
+    }
+
+    public ClipBank getBank() {
+        return bank;
+    }
+
+    /**
+     * Writes the clip indices for "&lt;amount&gt; &lt;unit&gt; received".
+     * @param minor A non-negative amount in minor units.
+     * @param unit The spoken currency unit; amounts in unknown currencies are not supported.
+     * @param out Receives the clip indices; at least {@link #MAX_CLIPS} long.
+     * @return The number of clips written, or -1 if the bank lacks a needed word.
+     */
+    public int build(long minor, SpokenAmount.Unit unit, int[] out) {
+        if (unit == null || minor < 0 || !Money.isValid(minor)) return -1;
+        long major = minor / 100;
+        int fraction = (int) (minor % 100);
+        int n = 0;
+        if (major > 0 || fraction == 0) {
+            n = appendNumber(major, out, n);
+            n = append(bank.indexOf(major == 1 ? unit.majorSingular : unit.majorPlural), out, n);
+        }
+        if (fraction > 0) {
+            if (major > 0) n = append(and, out, n);
+            n = appendNumber(fraction, out, n);
+            n = append(bank.indexOf(fraction == 1 ? unit.minorSingular : unit.minorPlural), out, n);
+        }
+        return append(received, out, n);
+    }
+
+    private int appendNumber(long value, int[] out, int n) {
+        if (n < 0) return n;
+        if (value == 0) return append(ones[0], out, n);
+        if (value >= CRORE) {
+            n = appendNumber(value / CRORE, out, n);
+            n = append(crore, out, n);
+            value %= CRORE;
+        }
+        if (value >= LAKH) {
+            n = appendBelowHundred((int) (value / LAKH), out, n);
+            n = append(lakh, out, n);
+            value %= LAKH;
+        }
+        if (value >= 1000) {
+            n = appendBelowHundred((int) (value / 1000), out, n);
+            n = append(thousand, out, n);
+            value %= 1000;
+        }
+        if (value >= 100) {
+            n = append(ones[(int) (value / 100)], out, n);
+            n = append(hundred, out, n);
+            value %= 100;
+        }
+        if (value > 0) {
+            n = appendBelowHundred((int) value, out, n);
+        }
+        return n;
+    }
+
+    private int appendBelowHundred(int value, int[] out, int n) {
+        if (value < 20) return append(ones[value], out, n);
+        n = append(tens[value / 10], out, n);
+        if (value % 10 != 0) n = append(ones[value % 10], out, n);
+        return n;
+    }
+
+    private static int append(int clip, int[] out, int n) {
+        if (n < 0 || clip < 0 || n >= out.length) return -1;
+        out[n] = clip;
+        return n + 1;
+    }
+}
@@ -0,0 +1,186 @@
+package com.digikhata.audionotification;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU of files in a single directory. The in-memory index is rebuilt from
+ * the directory the first time the cache is used, ordered by last-modified time, and
+ * entries are written to a temporary file and published atomically with a rename.
+ */
+public class DiskLruCache {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final String fileSuffix;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(32, 0.75f, true);
+    private boolean loaded;
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long writes;
+    private long evictions;
+
+    /**
+     * @param directory The directory that holds the cached files.
+     * @param fileSuffix The suffix of published entries, e.g. ".wav".
+     * @param maxBytes The total size the cache is trimmed to.
+     */
+    public DiskLruCache(File directory, String fileSuffix, long maxBytes) {
+        this.directory = directory;
+        this.fileSuffix = fileSuffix;
+        this.maxBytes = maxBytes;
+    }
+
+    /** @return A 16 character hex FNV-1a hash of the value, safe to use as a file name. */
+    public static String hashKey(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Looks up a cached file and marks it most recently used.
+     * @return The cached file, or null on a miss.
+     */
+    public synchronized File get(String key) {
+        ensureLoaded();
+        if (index.get(key) == null) {
+            misses++;
+            return null;
+        }
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            removeEntry(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /** Returns the temporary file a new entry should be written to, or null if the key is already cached. */
+    public synchronized File beginWrite(String key) {
+        ensureLoaded();
+        if (index.containsKey(key)) return null;
+        if (!directory.isDirectory() && !directory.mkdirs()) return null;
+        return new File(directory, key + TEMP_SUFFIX);
+    }
+
+    /** Publishes a finished entry and evicts least recently used entries over budget. */
+    public synchronized boolean commit(String key) {
+        ensureLoaded();
+        File temp = new File(directory, key + TEMP_SUFFIX);
+        File target = fileFor(key);
+        long length = temp.length();
+        if (length <= 0 || length > maxBytes || !temp.renameTo(target)) {
+            temp.delete();
+            return false;
+        }
+        removeEntry(key);
+        index.put(key, length);
+        totalBytes += length;
+        writes++;
+        trimToSize();
+        return true;
+    }
+
+    public synchronized void abort(String key) {
+        new File(directory, key + TEMP_SUFFIX).delete();
+    }
+
+    public synchronized void clear() {
+        ensureLoaded();
+        for (String key : new ArrayList<>(index.keySet())) {
+            fileFor(key).delete();
+        }
+        index.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getEntryCount() {
+        ensureLoaded();
+        return index.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        ensureLoaded();
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + fileSuffix);
+    }
+
+    private void removeEntry(String key) {
+        Long length = index.remove(key);
+        if (length != null) totalBytes -= length;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            fileFor(eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        List<File> entries = new ArrayList<>(files.length);
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                file.delete();
+            } else if (name.endsWith(fileSuffix)) {
+                entries.add(file);
+            }
+        }
+        File[] sorted = entries.toArray(new File[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : sorted) {
+            String key = file.getName().substring(0, file.getName().length() - fileSuffix.length());
+            long length = file.length();
+            index.put(key, length);
+            totalBytes += length;
+        }
+        trimToSize();
+    }
+}
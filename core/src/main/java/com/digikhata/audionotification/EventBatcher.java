@@ -0,0 +1,93 @@
+package com.digikhata.audionotification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded buffer that turns a stream of events into batches, so a burst crosses the
+ * bridge a few times instead of once per event. When the consumer falls behind, the
+ * oldest events are dropped and the count is reported with the next batch.
+ */
+public class EventBatcher<E> {
+    private final ArrayDeque<E> pending = new ArrayDeque<>();
+    private final int capacity;
+    private final int maxBatch;
+    private int droppedSinceDrain;
+
+    private long added;
+    private long delivered;
+    private long batches;
+    private long dropped;
+
+    /**
+     * @param capacity Maximum events held between drains.
+     * @param maxBatch Maximum events handed out by one {@link #drain}.
+     */
+    public EventBatcher(int capacity, int maxBatch) {
+        this.capacity = Math.max(1, capacity);
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    /**
+     * Buffers an event.
+     * @return true if the buffer was empty, meaning the caller should schedule a drain.
+     */
+    public synchronized boolean add(E event) {
+        boolean wasEmpty = pending.isEmpty();
+        if (pending.size() >= capacity) {
+            pending.pollFirst();
+            droppedSinceDrain++;
+            dropped++;
+        }
+        pending.addLast(event);
+        added++;
+        return wasEmpty;
+    }
+
+    /** @return Up to maxBatch of the oldest events, or an empty list. */
+    public synchronized List<E> drain() {
+        int n = Math.min(pending.size(), maxBatch);
+        List<E> batch = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            batch.add(pending.pollFirst());
+        }
+        if (n > 0) {
+            delivered += n;
+            batches++;
+        }
+        return batch;
+    }
+
+    /** @return Events dropped since the last call, then resets that count. */
+    public synchronized int takeDropped() {
+        int count = droppedSinceDrain;
+        droppedSinceDrain = 0;
+        return count;
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+        droppedSinceDrain = 0;
+    }
+
+    public synchronized long getAdded() {
+        return added;
+    }
+
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+}
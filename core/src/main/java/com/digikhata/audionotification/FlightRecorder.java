@@ -0,0 +1,177 @@
+package com.digikhata.audionotification;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records pipeline events into a fixed ring buffer instead of the system log. An event is
+ * a type code, a wall-clock timestamp and two numeric arguments written into preallocated
+ * arrays, so recording allocates nothing and builds no strings; text is only produced by
+ * {@link #dump(int)}. The oldest events are overwritten once the buffer is full.
+ * <p>
+ * Any thread may record. A slot claimed by a writer is published with its sequence
+ * number, and {@link #dump(int)} skips slots that were overwritten while it read them.
+ */
+public final class FlightRecorder {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // Event types. The comments name the two arguments; -1 means unknown.
+    /** A payment message arrived: transport ms. */
+    public static final int MESSAGE_RECEIVED = 1;
+    /** A payment was already delivered: notification ID. */
+    public static final int PAYMENT_DUPLICATE = 2;
+    /** A payment was accepted: journal sequence, notification ID. */
+    public static final int PAYMENT_ACCEPTED = 3;
+    /** A payment notification was handed to the scheduler: notification ID, 1 if posted on its own or 0 if only in the summary. */
+    public static final int NOTIFICATION_POSTED = 4;
+    /** FCM handed over a new token. */
+    public static final int TOKEN_REFRESHED = 5;
+    /** An announcement was queued: notification ID, queue size. */
+    public static final int ANNOUNCEMENT_QUEUED = 6;
+    /** An announcement was dropped: queue size. */
+    public static final int ANNOUNCEMENT_DROPPED = 7;
+    /** An announcement was handed to the engine: utterance number, payments in it. */
+    public static final int SPEECH_DISPATCHED = 8;
+    /** The engine refused an utterance: utterance number. */
+    public static final int SPEECH_REJECTED = 9;
+    /** Audio started: utterance number, ms since dispatch. */
+    public static final int SPEECH_STARTED = 10;
+    /** Audio finished: utterance number, ms since start. */
+    public static final int SPEECH_DONE = 11;
+    /** The engine reported an error: utterance number. */
+    public static final int SPEECH_ERROR = 12;
+    /** An utterance was stopped: utterance number. */
+    public static final int SPEECH_STOPPED = 13;
+    /** The engine is ready: init ms, queued announcements. */
+    public static final int ENGINE_READY = 14;
+    /** The engine failed: init status or attempts, re-initialization attempts so far. */
+    public static final int ENGINE_FAILED = 15;
+    /** A failed announcement was kept for another try: attempt, 1 if scheduled or 0 if abandoned. */
+    public static final int RETRY_SCHEDULED = 16;
+    /** Failed announcements were queued again: count. */
+    public static final int RETRY_DUE = 17;
+    /** The acknowledge action ran: notification ID, 1 if an announcement was cancelled. */
+    public static final int ACKNOWLEDGED = 18;
+    /** Speech stopped and the queue was cleared by stop or acknowledge all: announcements cleared. */
+    public static final int STOPPED_ALL = 19;
+    /** A setting changed: first value, second value. */
+    public static final int CONFIGURED = 20;
+    /** The user tapped an acknowledge action: notification ID, 1 for acknowledge all. */
+    public static final int ACKNOWLEDGE_RECEIVED = 21;
+
+    private static final String[] NAMES = {
+            null, "MESSAGE_RECEIVED", "PAYMENT_DUPLICATE", "PAYMENT_ACCEPTED", "NOTIFICATION_POSTED",
+            "TOKEN_REFRESHED", "ANNOUNCEMENT_QUEUED", "ANNOUNCEMENT_DROPPED", "SPEECH_DISPATCHED",
+            "SPEECH_REJECTED", "SPEECH_STARTED", "SPEECH_DONE", "SPEECH_ERROR", "SPEECH_STOPPED",
+            "ENGINE_READY", "ENGINE_FAILED", "RETRY_SCHEDULED", "RETRY_DUE", "ACKNOWLEDGED",
+            "STOPPED_ALL", "CONFIGURED", "ACKNOWLEDGE_RECEIVED"
+    };
+    private static final String[][] ARGS = {
+            {}, {"transportMs"}, {"notificationId"}, {"sequence", "notificationId"},
+            {"notificationId", "ownPost"}, {}, {"notificationId", "queued"}, {"queued"},
+            {"utterance", "payments"}, {"utterance"}, {"utterance", "sinceDispatchMs"},
+            {"utterance", "durationMs"}, {"utterance"}, {"utterance"}, {"initMs", "queued"},
+            {"status", "attempts"}, {"attempt", "scheduled"}, {"count"}, {"notificationId", "cancelled"},
+            {"cleared"}, {"a", "b"}, {"notificationId", "all"}
+    };
+
+    private static final FlightRecorder INSTANCE = new FlightRecorder(DEFAULT_CAPACITY);
+
+    private final int mask;
+    private final int[] types;
+    private final long[] times;
+    private final long[] firstArgs;
+    private final long[] secondArgs;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong();
+
+    /** @param capacity The number of events kept, rounded up to a power of two. */
+    public FlightRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        types = new int[size];
+        times = new long[size];
+        firstArgs = new long[size];
+        secondArgs = new long[size];
+        published = new AtomicLongArray(size);
+    }
+
+    public static FlightRecorder get() {
+        return INSTANCE;
+    }
+
+    public void record(int type) {
+        record(type, -1, -1);
+    }
+
+    public void record(int type, long first) {
+        record(type, first, -1);
+    }
+
+    public void record(int type, long first, long second) {
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) sequence & mask;
+        published.set(slot, 0);
+        types[slot] = type;
+        times[slot] = System.currentTimeMillis();
+        firstArgs[slot] = first;
+        secondArgs[slot] = second;
+        published.set(slot, sequence + 1);
+    }
+
+    /** @return The number of events recorded since creation, including overwritten ones. */
+    public long getRecorded() {
+        return cursor.get();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Formats the most recent events, oldest first, e.g.
+     * {@code 12:04:31.118 +3ms SPEECH_STARTED utterance=7 sinceDispatchMs=41}.
+     * @param limit The maximum number of events, or 0 for the whole buffer.
+     */
+    public List<String> dump(int limit) {
+        long end = cursor.get();
+        int count = (int) Math.min(end, getCapacity());
+        if (limit > 0) count = Math.min(count, limit);
+        List<String> lines = new ArrayList<>(count);
+        SimpleDateFormat clock = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        long previous = -1;
+        for (long sequence = end - count; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (published.get(slot) != sequence + 1) continue;
+            int type = types[slot];
+            long time = times[slot];
+            long first = firstArgs[slot];
+            long second = secondArgs[slot];
+            // A writer that lapped the reader has replaced the slot meanwhile.
+            if (published.get(slot) != sequence + 1) continue;
+
+            StringBuilder line = new StringBuilder(64).append(clock.format(new Date(time)));
+            if (previous >= 0) line.append(" +").append(time - previous).append("ms");
+            previous = time;
+            boolean known = type > 0 && type < NAMES.length;
+            line.append(' ').append(known ? NAMES[type] : "EVENT_" + type);
+            String[] args = known ? ARGS[type] : new String[] {"a", "b"};
+            if (args.length > 0 && first != -1) line.append(' ').append(args[0]).append('=').append(first);
+            if (args.length > 1 && second != -1) line.append(' ').append(args[1]).append('=').append(second);
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /** Forgets every recorded event. */
+    public void clear() {
+        for (int slot = 0; slot <= mask; slot++) {
+            published.set(slot, 0);
+        }
+    }
+}
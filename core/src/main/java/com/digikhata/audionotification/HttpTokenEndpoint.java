@@ -0,0 +1,75 @@
+package com.digikhata.audionotification;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registers an FCM token by POSTing {@code {"token": "...", "platform": "android"}} as JSON.
+ * Timeouts, 408, 429 and 5xx responses are retried by {@link TokenSync}; any other 4xx is
+ * treated as a refusal of the token.
+ */
+public class HttpTokenEndpoint implements TokenSync.Endpoint {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 10000;
+
+    private final URL url;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * @param endpointUrl An http or https URL.
+     * @throws IOException if the URL is malformed or has another scheme.
+     */
+    public HttpTokenEndpoint(String endpointUrl, int connectTimeoutMs, int readTimeoutMs) throws IOException {
+        this.url = new URL(endpointUrl);
+        String protocol = url.getProtocol();
+        if (!"https".equals(protocol) && !"http".equals(protocol)) {
+            throw new IOException("Unsupported token endpoint scheme: " + protocol);
+        }
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @Override
+    public void register(String token) throws IOException {
+        byte[] body = ("{\"token\":\"" + escape(token) + "\",\"platform\":\"android\"}").getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int code = connection.getResponseCode();
+            if (code >= 200 && code < 300) return;
+            if (code >= 400 && code < 500 && code != 408 && code != 429) {
+                throw new TokenSync.RejectedException("Token refused with HTTP " + code);
+            }
+            throw new IOException("Token registration failed with HTTP " + code);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.digikhata.audionotification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Downloads notification images with hard connect and read deadlines and a size cap,
+ * so a slow or oversized image can never stall the payment path.
+ */
+public class ImageFetcher {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 3000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final int maxBytes;
+
+    public ImageFetcher(int connectTimeoutMs, int readTimeoutMs, int maxBytes) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Fetches the image bytes.
+     * @param imageUrl An http or https URL.
+     * @return The response body.
+     * @throws IOException on timeouts, non-2xx responses, unsupported schemes or bodies larger than the cap.
+     */
+    public byte[] fetch(String imageUrl) throws IOException {
+        URL url = new URL(imageUrl);
+        String protocol = url.getProtocol();
+        if (!"https".equals(protocol) && !"http".equals(protocol)) {
+            throw new IOException("Unsupported image URL scheme: " + protocol);
+        }
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setInstanceFollowRedirects(true);
+            int code = connection.getResponseCode();
+            if (code < 200 || code >= 300) {
+                throw new IOException("Image request failed with HTTP " + code);
+            }
+            long declared = connection.getContentLengthLong();
+            if (declared > maxBytes) {
+                throw new IOException("Image too large: " + declared + " bytes");
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(declared > 0 ? (int) declared : 16 * 1024);
+                byte[] buffer = new byte[8192];
+                int total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new IOException("Image exceeds " + maxBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
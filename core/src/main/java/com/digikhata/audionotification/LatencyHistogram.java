@@ -0,0 +1,85 @@
+package com.digikhata.audionotification;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram. Recording is a binary search and an increment, with
+ * no allocation; percentiles are reported as the upper bound of the bucket that holds
+ * the requested rank, clamped to the largest recorded value.
+ */
+public class LatencyHistogram {
+    /** Upper bucket bounds in milliseconds; the last bucket collects everything above. */
+    private static final long[] BOUNDS_MS = {
+            1, 2, 5, 10, 20, 35, 50, 75, 100, 150, 200, 300, 400, 500, 750,
+            1000, 1500, 2000, 3000, 5000, 7500, 10000, 15000, 30000, 60000,
+            120000, 300000, 600000, 1800000
+    };
+
+    private final String name;
+    private final long[] counts = new long[BOUNDS_MS.length + 1];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Records one sample; negative values (clock skew) are counted as zero. */
+    public synchronized void record(long valueMs) {
+        long value = Math.max(0, valueMs);
+        int index = Arrays.binarySearch(BOUNDS_MS, value);
+        if (index < 0) index = -index - 1;
+        counts[index]++;
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMin() {
+        return count > 0 ? min : 0;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * @param percentile A value between 0 and 100.
+     * @return The estimated latency at that percentile, or 0 if nothing was recorded.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], max) : max;
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.digikhata.audionotification;
+
+/**
+ * Fixed-point money helpers. Amounts are held as a {@code long} count of minor units
+ * (paise, cents), so parsing, summing and formatting never touch floating point and
+ * the parser does not allocate.
+ */
+public final class Money {
+    /** Returned by {@link #parseMinor(CharSequence)} for input that is not an amount. */
+    public static final long INVALID = Long.MIN_VALUE;
+    private static final long MAX_MAJOR = Long.MAX_VALUE / 100 - 1;
+
+    private Money() {}
+
+    /**
+     * Parses a decimal amount such as "1250", "1,250.5" or " 12,50,000.75 " into minor units.
+     * Grouping commas are ignored, at most two fraction digits are accepted and a leading
+     * minus sign is allowed.
+     * @return The amount in minor units, or {@link #INVALID}.
+     */
+    public static long parseMinor(CharSequence text) {
+        if (text == null) return INVALID;
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        if (start == end) return INVALID;
+
+        boolean negative = false;
+        if (text.charAt(start) == '-') {
+            negative = true;
+            start++;
+        }
+        long major = 0;
+        long minor = 0;
+        int fractionDigits = -1;
+        boolean sawDigit = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (fractionDigits < 0) {
+                    if (major > (MAX_MAJOR - (c - '0')) / 10) return INVALID;
+                    major = major * 10 + (c - '0');
+                } else {
+                    if (++fractionDigits > 2) return INVALID;
+                    minor = minor * 10 + (c - '0');
+                }
+            } else if (c == ',' && fractionDigits < 0) {
+                continue;
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return INVALID;
+            }
+        }
+        if (!sawDigit) return INVALID;
+        if (fractionDigits == 1) minor *= 10;
+        long value = major * 100 + minor;
+        return negative ? -value : value;
+    }
+
+    public static boolean isValid(long minor) {
+        return minor != INVALID;
+    }
+
+    /** Appends the amount as plain digits, e.g. 125000 becomes "1250" and 125050 becomes "1250.50". */
+    public static StringBuilder appendPlain(long minor, StringBuilder out) {
+        if (minor < 0) {
+            out.append('-');
+            minor = -minor;
+        }
+        out.append(minor / 100);
+        long fraction = minor % 100;
+        if (fraction != 0) {
+            out.append('.');
+            if (fraction < 10) out.append('0');
+            out.append(fraction);
+        }
+        return out;
+    }
+
+    public static String toPlainString(long minor) {
+        return appendPlain(minor, new StringBuilder(16)).toString();
+    }
+
+    /** Appends the amount with Indian digit grouping, e.g. "1,25,000" or "1,250.50". */
+    public static StringBuilder appendIndianGrouped(long minor, StringBuilder out) {
+        if (minor < 0) {
+            out.append('-');
+            minor = -minor;
+        }
+        long major = minor / 100;
+        int mark = out.length();
+        // Digits are appended least significant first and the run is reversed at the end.
+        int digits = 0;
+        do {
+            if (digits == 3 || (digits > 3 && digits % 2 == 1)) out.append(',');
+            out.append((char) ('0' + major % 10));
+            major /= 10;
+            digits++;
+        } while (major > 0);
+        for (int i = mark, j = out.length() - 1; i < j; i++, j--) {
+            char c = out.charAt(i);
+            out.setCharAt(i, out.charAt(j));
+            out.setCharAt(j, c);
+        }
+        long fraction = minor % 100;
+        if (fraction != 0) {
+            out.append('.');
+            if (fraction < 10) out.append('0');
+            out.append(fraction);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,261 @@
+package com.digikhata.audionotification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Remembers recently handled payment IDs so FCM redeliveries are not announced twice.
+ * <p>
+ * The exact record is a ring buffer of 64-bit ID hashes that is written through to a
+ * small file, so it survives process death. A rolling pair of bloom filters covers at
+ * least the ring contents and answers the common "never seen" case without touching
+ * the ring; only bloom hits are confirmed, through an open-addressing hash set that
+ * mirrors the ring so confirming costs a probe or two instead of a scan.
+ */
+public class PaymentDedupIndex {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAGIC = 0x50444931;
+    private static final int HEADER_BYTES = 16;
+    private static final int BITS_PER_ENTRY = 16;
+    private static final int HASH_COUNT = 4;
+
+    private final long[] ring;
+    // Open-addressing set of the hashes in the ring; 0 marks an empty slot.
+    private final long[] members;
+    private final int bloomBits;
+    private long[] currentBloom;
+    private long[] previousBloom;
+    private int generationInserts;
+    private int head;
+    private int count;
+    private RandomAccessFile file;
+
+    private long lookups;
+    private long duplicates;
+    private long bloomNegatives;
+    private long bloomFalsePositives;
+    private long writeErrors;
+
+    public PaymentDedupIndex(File file, int capacity) {
+        int size = Math.max(16, capacity);
+        ring = new long[size];
+        // At most half full, so probes stay short.
+        members = new long[Integer.highestOneBit(size * 2 - 1) << 1];
+        bloomBits = Integer.highestOneBit(size * BITS_PER_ENTRY - 1) << 1;
+        currentBloom = new long[bloomBits >>> 6];
+        previousBloom = new long[bloomBits >>> 6];
+        open(file);
+    }
+
+    /**
+     * Checks whether a payment ID was already handled and records it if not.
+     * @param id The transaction or message ID; empty IDs are never treated as duplicates.
+     * @return true if the ID was seen before and the payment should be skipped.
+     */
+    public synchronized boolean checkAndRecord(String id) {
+        if (id == null || id.isEmpty()) return false;
+        lookups++;
+        long hash = hash(id);
+        if (mightContain(hash)) {
+            if (ringContains(hash)) {
+                duplicates++;
+                return true;
+            }
+            bloomFalsePositives++;
+        } else {
+            bloomNegatives++;
+        }
+        record(hash);
+        return false;
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    public synchronized long getBloomNegatives() {
+        return bloomNegatives;
+    }
+
+    public synchronized long getBloomFalsePositives() {
+        return bloomFalsePositives;
+    }
+
+    public synchronized long getWriteErrors() {
+        return writeErrors;
+    }
+
+    public synchronized int getEntryCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /** @return The heap used by the ring and both bloom generations, in bytes. */
+    public long getMemoryBytes() {
+        return 8L * (ring.length + members.length + currentBloom.length + previousBloom.length);
+    }
+
+    public synchronized void close() {
+        try {
+            if (file != null) file.close();
+        } catch (IOException ignored) {
+        }
+        file = null;
+    }
+
+    private void record(long hash) {
+        int slot = head;
+        if (count == ring.length) removeMember(ring[slot]);
+        ring[slot] = hash;
+        addMember(hash);
+        head = (head + 1) % ring.length;
+        if (count < ring.length) count++;
+        addToBloom(hash);
+        if (file == null) return;
+        try {
+            file.seek(HEADER_BYTES + 8L * slot);
+            file.writeLong(hash);
+            file.seek(8);
+            file.writeInt(head);
+            file.writeInt(count);
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    private boolean ringContains(long hash) {
+        return members[find(hash)] == hash;
+    }
+
+    private void addMember(long hash) {
+        members[find(hash)] = hash;
+    }
+
+    private void removeMember(long hash) {
+        int mask = members.length - 1;
+        int hole = find(hash);
+        if (members[hole] == 0) return;
+        // Shift later entries of the probe run back so each stays reachable from its home slot.
+        for (int next = (hole + 1) & mask; members[next] != 0; next = (next + 1) & mask) {
+            int home = home(members[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                members[hole] = members[next];
+                hole = next;
+            }
+        }
+        members[hole] = 0;
+    }
+
+    private int find(long hash) {
+        int mask = members.length - 1;
+        int slot = home(hash);
+        while (members[slot] != 0 && members[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (members.length - 1);
+    }
+
+    private boolean mightContain(long hash) {
+        return bloomContains(currentBloom, hash) || bloomContains(previousBloom, hash);
+    }
+
+    private boolean bloomContains(long[] bloom, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = bloomBits - 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private void addToBloom(long hash) {
+        // Each generation holds one ring's worth of inserts, so the pair always covers the ring.
+        if (generationInserts >= ring.length) {
+            long[] recycled = previousBloom;
+            Arrays.fill(recycled, 0L);
+            previousBloom = currentBloom;
+            currentBloom = recycled;
+            generationInserts = 0;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = bloomBits - 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = (h1 + i * h2) & mask;
+            currentBloom[bit >>> 6] |= 1L << bit;
+        }
+        generationInserts++;
+    }
+
+    private void open(File path) {
+        if (path == null) return;
+        try {
+            File parent = path.getParentFile();
+            if (parent != null && !parent.isDirectory()) parent.mkdirs();
+            file = new RandomAccessFile(path, "rw");
+            if (file.length() == HEADER_BYTES + 8L * ring.length) {
+                file.seek(0);
+                int magic = file.readInt();
+                int capacity = file.readInt();
+                int storedHead = file.readInt();
+                int storedCount = file.readInt();
+                if (magic == MAGIC && capacity == ring.length && storedHead >= 0 && storedHead < capacity
+                        && storedCount >= 0 && storedCount <= capacity) {
+                    for (int i = 0; i < capacity; i++) {
+                        ring[i] = file.readLong();
+                    }
+                    head = storedHead;
+                    count = storedCount;
+                    int start = count < ring.length ? 0 : head;
+                    for (int i = 0; i < count; i++) {
+                        long hash = ring[(start + i) % ring.length];
+                        addToBloom(hash);
+                        addMember(hash);
+                    }
+                    return;
+                }
+            }
+            file.setLength(0);
+            file.setLength(HEADER_BYTES + 8L * ring.length);
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(ring.length);
+            file.writeInt(0);
+            file.writeInt(0);
+        } catch (IOException e) {
+            writeErrors++;
+            close();
+        }
+    }
+
+    static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // Final avalanche so the two 32-bit halves used by the bloom filter are independent.
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec3L;
+        h ^= h >>> 33;
+        // 0 marks an empty slot of the member set.
+        return h != 0 ? h : 1;
+    }
+}
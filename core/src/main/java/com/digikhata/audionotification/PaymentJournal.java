@@ -0,0 +1,407 @@
+package com.digikhata.audionotification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of received payments, so the app can read back payments that arrived
+ * while it was not running.
+ * <p>
+ * Records are appended to numbered segment files as {@code [length][crc32][payload]}.
+ * Writes go to the page cache without an fsync per record: they survive process death,
+ * and a segment is only forced to disk when it is rolled. On open every segment is
+ * scanned to rebuild the in-memory offset index, and a torn or corrupt tail is cut off.
+ * The oldest segments are deleted once {@code maxSegments} is exceeded.
+ */
+public class PaymentJournal {
+    public static final int DEFAULT_SEGMENT_BYTES = 256 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024;
+    private static final int VERSION = 1;
+
+    /** A journaled payment. */
+    public static class Entry {
+        public final long sequence;
+        public final long receivedAt;
+        public final long sentAt;
+        public final String transactionId;
+        public final String amount;
+        public final String currency;
+        public final String senderName;
+
+        public Entry(long sequence, long receivedAt, long sentAt, String transactionId,
+                     String amount, String currency, String senderName) {
+            this.sequence = sequence;
+            this.receivedAt = receivedAt;
+            this.sentAt = sentAt;
+            this.transactionId = transactionId;
+            this.amount = amount;
+            this.currency = currency;
+            this.senderName = senderName;
+        }
+    }
+
+    /** One page of a newest-first query. */
+    public static class Page {
+        public final List<Entry> entries;
+        /** The cursor for the next (older) page, or -1 when there are no more entries. */
+        public final long nextCursor;
+
+        Page(List<Entry> entries, long nextCursor) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    private static class Segment {
+        final long firstSequence;
+        final File file;
+        int entries;
+
+        Segment(long firstSequence, File file) {
+            this.firstSequence = firstSequence;
+            this.file = file;
+        }
+    }
+
+    private final File dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+    private RandomAccessFile activeFile;
+    private FileChannel activeChannel;
+
+    // Offset index: entry i has sequence firstSequence + i.
+    private long firstSequence;
+    private int size;
+    private long[] indexTimes = new long[64];
+    private int[] indexOffsets = new int[64];
+
+    private long appends;
+    private long writeErrors;
+    private long truncatedBytes;
+
+    public PaymentJournal(File dir) {
+        this(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public PaymentJournal(File dir, int segmentBytes, int maxSegments) {
+        this.dir = dir;
+        this.segmentBytes = Math.max(4096, segmentBytes);
+        this.maxSegments = Math.max(2, maxSegments);
+        open();
+    }
+
+    /**
+     * Appends a payment.
+     * @return The sequence number of the new entry, or -1 if it could not be written.
+     */
+    public synchronized long append(long receivedAt, long sentAt, String transactionId,
+                                    String amount, String currency, String senderName) {
+        try {
+            recordBuffer.reset();
+            recordOut.writeByte(VERSION);
+            recordOut.writeLong(receivedAt);
+            recordOut.writeLong(sentAt);
+            writeString(transactionId);
+            writeString(amount);
+            writeString(currency);
+            writeString(senderName);
+            int length = recordBuffer.size();
+            if (length > MAX_RECORD_BYTES) {
+                writeErrors++;
+                return -1;
+            }
+
+            Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (active == null || activeChannel == null || activeChannel.size() + RECORD_HEADER_BYTES + length > segmentBytes) {
+                active = rollSegment();
+            }
+
+            byte[] payload = recordBuffer.toByteArray();
+            crc.reset();
+            crc.update(payload, 0, length);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+            record.putInt(length).putInt((int) crc.getValue()).put(payload, 0, length);
+            record.flip();
+            long offset = activeChannel.size();
+            while (record.hasRemaining()) {
+                activeChannel.write(record, offset + record.position());
+            }
+
+            active.entries++;
+            addToIndex(receivedAt, (int) offset);
+            appends++;
+            return firstSequence + size - 1;
+        } catch (IOException e) {
+            writeErrors++;
+            return -1;
+        }
+    }
+
+    /**
+     * Returns entries newest first.
+     * @param fromTime Inclusive lower bound on receivedAt, or 0 for no bound.
+     * @param toTime Inclusive upper bound on receivedAt, or {@code Long.MAX_VALUE} for no bound.
+     * @param cursor A {@link Page#nextCursor} from a previous call, or -1 to start at the newest entry.
+     * @param limit Maximum number of entries, capped at {@link #MAX_PAGE_SIZE}.
+     */
+    public synchronized Page query(long fromTime, long toTime, long cursor, int limit) {
+        int max = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Entry> entries = new ArrayList<>(Math.min(max, size));
+        // Index times are kept non-decreasing, so the range maps to a contiguous slice.
+        int end = upperBound(toTime);
+        if (cursor >= 0) {
+            end = (int) Math.min(end, Math.max(0, cursor - firstSequence + 1));
+        }
+        int i = end - 1;
+        RandomAccessFile reader = null;
+        Segment readerSegment = null;
+        try {
+            for (; i >= 0 && entries.size() < max; i--) {
+                if (indexTimes[i] < fromTime) {
+                    i = -1;
+                    break;
+                }
+                long sequence = firstSequence + i;
+                Segment segment = segmentFor(sequence);
+                if (segment != readerSegment) {
+                    if (reader != null) reader.close();
+                    reader = new RandomAccessFile(segment.file, "r");
+                    readerSegment = segment;
+                }
+                Entry entry = readEntry(reader, indexOffsets[i], sequence);
+                if (entry != null && entry.receivedAt >= fromTime && entry.receivedAt <= toTime) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            i = -1;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        long next = i >= 0 && indexTimes[i] >= fromTime ? firstSequence + i : -1;
+        return new Page(entries, next);
+    }
+
+    /** Forces the active segment to disk. */
+    public synchronized void sync() {
+        try {
+            if (activeChannel != null) activeChannel.force(false);
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    public synchronized int getEntryCount() {
+        return size;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getAppends() {
+        return appends;
+    }
+
+    public synchronized long getWriteErrors() {
+        return writeErrors;
+    }
+
+    /** @return Bytes discarded from torn or corrupt segment tails when the journal was opened. */
+    public synchronized long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public synchronized void close() {
+        closeActive();
+    }
+
+    private void writeString(String value) throws IOException {
+        recordOut.writeUTF(value != null ? value : "");
+    }
+
+    private void addToIndex(long receivedAt, int offset) {
+        if (size == indexTimes.length) {
+            indexTimes = Arrays.copyOf(indexTimes, size * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, size * 2);
+        }
+        long previous = size > 0 ? indexTimes[size - 1] : Long.MIN_VALUE;
+        indexTimes[size] = Math.max(previous, receivedAt);
+        indexOffsets[size] = offset;
+        size++;
+    }
+
+    /** @return The number of index entries with a time at or below {@code time}. */
+    private int upperBound(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (indexTimes[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private Segment segmentFor(long sequence) {
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            if (sequence >= segment.firstSequence) return segment;
+        }
+        return segments.get(0);
+    }
+
+    private Entry readEntry(RandomAccessFile reader, int offset, long sequence) throws IOException {
+        reader.seek(offset);
+        int length = reader.readInt();
+        reader.readInt(); // checksum, verified when the journal was opened
+        if (length <= 0 || length > MAX_RECORD_BYTES || reader.readUnsignedByte() != VERSION) return null;
+        return new Entry(sequence, reader.readLong(), reader.readLong(),
+                reader.readUTF(), reader.readUTF(), reader.readUTF(), reader.readUTF());
+    }
+
+    private Segment rollSegment() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.force(false);
+        }
+        closeActive();
+        long first = firstSequence + size;
+        Segment segment = new Segment(first, new File(dir, segmentName(first)));
+        segments.add(segment);
+        openActive(segment);
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.remove(0);
+            dropFromIndex(oldest.entries);
+            if (!oldest.file.delete()) {
+                writeErrors++;
+            }
+        }
+        return segment;
+    }
+
+    private void dropFromIndex(int count) {
+        int drop = Math.min(count, size);
+        System.arraycopy(indexTimes, drop, indexTimes, 0, size - drop);
+        System.arraycopy(indexOffsets, drop, indexOffsets, 0, size - drop);
+        size -= drop;
+        firstSequence += drop;
+    }
+
+    private void openActive(Segment segment) throws IOException {
+        activeFile = new RandomAccessFile(segment.file, "rw");
+        activeChannel = activeFile.getChannel();
+    }
+
+    private void closeActive() {
+        try {
+            if (activeFile != null) activeFile.close();
+        } catch (IOException ignored) {
+        }
+        activeFile = null;
+        activeChannel = null;
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%020d", firstSequence) + SEGMENT_SUFFIX;
+    }
+
+    private void open() {
+        if (dir == null) return;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            writeErrors++;
+            return;
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return;
+        Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+        boolean first = true;
+        for (File file : files) {
+            long start;
+            try {
+                start = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (first) {
+                firstSequence = start;
+                first = false;
+            } else if (start != firstSequence + size) {
+                // A gap means a segment went missing; keep only what follows it.
+                dropFromIndex(size);
+                for (Segment stale : segments) {
+                    stale.file.delete();
+                }
+                segments.clear();
+                firstSequence = start;
+            }
+            Segment segment = new Segment(start, file);
+            try {
+                scanSegment(segment);
+                segments.add(segment);
+            } catch (IOException e) {
+                writeErrors++;
+            }
+        }
+        try {
+            if (!segments.isEmpty()) {
+                openActive(segments.get(segments.size() - 1));
+            }
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    private void scanSegment(Segment segment) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segment.file, "rw")) {
+            long length = raf.length();
+            long position = 0;
+            byte[] payload = new byte[MAX_RECORD_BYTES];
+            while (position + RECORD_HEADER_BYTES <= length) {
+                raf.seek(position);
+                int recordLength = raf.readInt();
+                int checksum = raf.readInt();
+                if (recordLength <= 0 || recordLength > MAX_RECORD_BYTES
+                        || position + RECORD_HEADER_BYTES + recordLength > length) {
+                    break;
+                }
+                raf.readFully(payload, 0, recordLength);
+                crc.reset();
+                crc.update(payload, 0, recordLength);
+                if ((int) crc.getValue() != checksum || payload[0] != VERSION) break;
+                long receivedAt = ByteBuffer.wrap(payload, 1, 8).getLong();
+                addToIndex(receivedAt, (int) position);
+                segment.entries++;
+                position += RECORD_HEADER_BYTES + recordLength;
+            }
+            if (position < length) {
+                truncatedBytes += length - position;
+                raf.setLength(position);
+            }
+        }
+    }
+}
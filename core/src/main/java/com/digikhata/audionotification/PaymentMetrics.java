@@ -0,0 +1,46 @@
+package com.digikhata.audionotification;
+
+/**
+ * Latency histograms for each stage of the payment pipeline, from the server send time
+ * to the end of the spoken announcement.
+ */
+public final class PaymentMetrics {
+    private static final PaymentMetrics INSTANCE = new PaymentMetrics();
+
+    /** RemoteMessage.getSentTime() to onMessageReceived entry. */
+    public final LatencyHistogram transport = new LatencyHistogram("transport");
+    /** onMessageReceived entry to the payment notification being posted. */
+    public final LatencyHistogram receivedToPosted = new LatencyHistogram("receivedToPosted");
+    /** onMessageReceived entry to TTS onStart. */
+    public final LatencyHistogram receivedToSpeechStart = new LatencyHistogram("receivedToSpeechStart");
+    /** TTS onStart to TTS onDone. */
+    public final LatencyHistogram speechDuration = new LatencyHistogram("speechDuration");
+    /** RemoteMessage.getSentTime() to TTS onDone. */
+    public final LatencyHistogram endToEnd = new LatencyHistogram("endToEnd");
+    /** Audio command submission to the start of its handling on the audio thread. */
+    public final LatencyHistogram audioCommand = new LatencyHistogram("audioCommand");
+
+    private volatile long since = System.currentTimeMillis();
+
+    private PaymentMetrics() {}
+
+    public static PaymentMetrics get() {
+        return INSTANCE;
+    }
+
+    public LatencyHistogram[] all() {
+        return new LatencyHistogram[] { transport, receivedToPosted, receivedToSpeechStart, speechDuration, endToEnd, audioCommand };
+    }
+
+    /** @return The wall-clock time the histograms were created or last reset. */
+    public long getSince() {
+        return since;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : all()) {
+            histogram.reset();
+        }
+        since = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,110 @@
+package com.digikhata.audionotification;
+
+import java.util.Map;
+
+/**
+ * Validated view of an FCM payment data message, with the IDs derived from it.
+ */
+public class PaymentPayload {
+    public static final String TYPE_PAYMENT = "payment";
+    public static final String DEFAULT_TITLE = "Payment Received";
+    public static final String DEFAULT_BODY = "You have received a payment";
+    public static final String DEFAULT_SENDER = "Unknown";
+    public static final String DEFAULT_AMOUNT = "0";
+    public static final String DEFAULT_CURRENCY = "₹";
+
+    private final String title;
+    private final String body;
+    private final String senderName;
+    private final String amount;
+    private final String currency;
+    private final String transactionId;
+    private final String imageUrl;
+    private final String messageId;
+    private final String language;
+
+    public PaymentPayload(String title, String body, String senderName, String amount, String currency,
+                          String transactionId, String imageUrl, String messageId, String language) {
+        this.title = valueOrDefault(title, DEFAULT_TITLE);
+        this.body = valueOrDefault(body, DEFAULT_BODY);
+        this.senderName = valueOrDefault(senderName, DEFAULT_SENDER);
+        this.amount = valueOrDefault(amount, DEFAULT_AMOUNT);
+        this.currency = valueOrDefault(currency, DEFAULT_CURRENCY);
+        this.transactionId = valueOrDefault(transactionId, "");
+        this.imageUrl = imageUrl != null && !imageUrl.isEmpty() ? imageUrl : null;
+        this.messageId = messageId;
+        this.language = language != null && !language.trim().isEmpty() ? language.trim() : null;
+    }
+
+    public static boolean isPaymentMessage(Map<String, String> data) {
+        return data != null && TYPE_PAYMENT.equals(data.get("type"));
+    }
+
+    /**
+     * Parses the data map of a payment message.
+     * @param data The FCM data payload.
+     * @param title The notification title, or null to use the default.
+     * @param body The notification body, or null to use the default.
+     * @param messageId The FCM message ID, used for deduplication when no transactionId is sent.
+     */
+    public static PaymentPayload fromData(Map<String, String> data, String title, String body, String messageId) {
+        return new PaymentPayload(title, body, data.get("senderName"), data.get("amount"), data.get("currency"),
+                data.get("transactionId"), data.get("imageUrl"), messageId, data.get("lang"));
+    }
+
+    public static String valueOrDefault(String input, String defaultValue) {
+        return (input == null || input.trim().isEmpty()) ? defaultValue : input;
+    }
+
+    /** @return The key used to detect redelivery: the transactionId, else the FCM message ID, else empty. */
+    public String getDedupKey() {
+        if (!transactionId.isEmpty()) return transactionId;
+        return messageId != null && !messageId.isEmpty() ? "msg:" + messageId : "";
+    }
+
+    /** @return A notification ID that stays the same for every delivery of this payment. */
+    public int getNotificationId() {
+        return notificationIdFor(transactionId.isEmpty() ? getDedupKey() : transactionId);
+    }
+
+    public static int notificationIdFor(String transactionId) {
+        return transactionId != null ? transactionId.hashCode() : 0;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public String getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /** @return The optional {@code lang} field as a BCP 47 tag, e.g. hi-IN, or null. */
+    public String getLanguage() {
+        return language;
+    }
+}
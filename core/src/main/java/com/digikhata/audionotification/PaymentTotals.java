@@ -0,0 +1,369 @@
+package com.digikhata.audionotification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Running payment count and total for the current day, overall and per sender, so "how
+ * much did I get today?" is answered on the device without a server round trip.
+ * <p>
+ * Senders live in a fixed-size open-addressing table keyed by a 64-bit hash of the
+ * normalized name; senders beyond its load limit are added to one "others" bucket. Like
+ * {@link PaymentDedupIndex}, the table is mirrored in a file with fixed offsets, so each
+ * payment costs one slot write and one header write. The first payment after local
+ * midnight moves the day's figures to "yesterday" and clears the table.
+ * <p>
+ * Only payments in the day's first currency are summed; others are counted separately.
+ */
+public class PaymentTotals {
+    public static final int DEFAULT_SENDER_CAPACITY = 256;
+    private static final int MAGIC = 0x50544F31;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int CURRENCY_BYTES = 16;
+    private static final int NAME_BYTES = 72;
+    // Header: magic, capacity, today, yesterday, others.
+    private static final int OFFSET_TODAY = 8;
+    private static final int DAY_BYTES = 8 + 4 + 4 + 4 + 8 + 2 + CURRENCY_BYTES;
+    private static final int OFFSET_YESTERDAY = OFFSET_TODAY + DAY_BYTES;
+    private static final int OFFSET_OTHERS = OFFSET_YESTERDAY + DAY_BYTES;
+    private static final int HEADER_BYTES = OFFSET_OTHERS + 4 + 8;
+    // Slot: hash, count, total, name length, name.
+    private static final int SLOT_BYTES = 8 + 4 + 8 + 2 + NAME_BYTES;
+
+    /** One day's figures. */
+    public static final class Day {
+        /** Days since 1970-01-01 in the local time zone. */
+        public final long epochDay;
+        public final int count;
+        /** The sum of the payments in {@link #currency}, in minor units. */
+        public final long totalMinor;
+        /** The currency of the day's first payment, or null if there were none. */
+        public final String currency;
+        /** Payments whose amount could not be parsed. */
+        public final int invalid;
+        /** Payments in a currency other than {@link #currency}. */
+        public final int otherCurrency;
+
+        Day(long epochDay, int count, long totalMinor, String currency, int invalid, int otherCurrency) {
+            this.epochDay = epochDay;
+            this.count = count;
+            this.totalMinor = totalMinor;
+            this.currency = currency;
+            this.invalid = invalid;
+            this.otherCurrency = otherCurrency;
+        }
+    }
+
+    /** One sender's figures for the current day. */
+    public static final class Sender {
+        public final String name;
+        public final int count;
+        public final long totalMinor;
+
+        Sender(String name, int count, long totalMinor) {
+            this.name = name;
+            this.count = count;
+            this.totalMinor = totalMinor;
+        }
+    }
+
+    private final TimeZone zone;
+    private final int capacity;
+    private final int maxSenders;
+    private final long[] hashes;
+    private final int[] counts;
+    private final long[] totals;
+    private final String[] names;
+    private int senders;
+    private Day today;
+    private Day yesterday;
+    private int othersCount;
+    private long othersTotal;
+    private RandomAccessFile file;
+    private long writeErrors;
+
+    /**
+     * @param file The file the totals are kept in, or null to keep them in memory only.
+     * @param senderCapacity The number of distinct senders tracked per day before the rest are
+     *                       counted as others.
+     * @param zone The time zone whose midnight ends a day, or null for the device default.
+     */
+    public PaymentTotals(File file, int senderCapacity, TimeZone zone) {
+        this.zone = zone;
+        this.maxSenders = Math.max(1, senderCapacity);
+        // Keep the table at most three quarters full so probes stay short.
+        this.capacity = Integer.highestOneBit(maxSenders * 4 / 3 + 1) << 1;
+        this.hashes = new long[capacity];
+        this.counts = new int[capacity];
+        this.totals = new long[capacity];
+        this.names = new String[capacity];
+        this.today = new Day(-1, 0, 0, null, 0, 0);
+        this.yesterday = today;
+        open(file);
+    }
+
+    /**
+     * Adds a payment to the day it was received on.
+     * @param at The wall-clock receive time.
+     */
+    public synchronized void record(long at, String amount, String currency, String senderName) {
+        rollTo(epochDay(at));
+        long minor = Money.parseMinor(amount);
+        String unit = currency != null ? currency : "";
+        String dayCurrency = today.currency != null ? today.currency : unit;
+        boolean summed = Money.isValid(minor) && unit.equals(dayCurrency);
+        today = new Day(today.epochDay, today.count + 1, today.totalMinor + (summed ? minor : 0), dayCurrency,
+                today.invalid + (Money.isValid(minor) ? 0 : 1),
+                today.otherCurrency + (Money.isValid(minor) && !summed ? 1 : 0));
+        writeDay(OFFSET_TODAY, today);
+
+        String name = senderName != null && !senderName.trim().isEmpty() ? senderName.trim() : PaymentPayload.DEFAULT_SENDER;
+        long hash = hash(name);
+        int slot = find(hash);
+        if (hashes[slot] == 0 && senders >= maxSenders) {
+            othersCount++;
+            if (summed) othersTotal += minor;
+            writeOthers();
+            return;
+        }
+        if (hashes[slot] == 0) {
+            hashes[slot] = hash;
+            names[slot] = name;
+            senders++;
+        }
+        counts[slot]++;
+        if (summed) totals[slot] += minor;
+        writeSlot(slot);
+    }
+
+    /** @return Today's figures, empty if nothing was received yet today. */
+    public synchronized Day getToday(long now) {
+        rollTo(epochDay(now));
+        return today;
+    }
+
+    /** @return Yesterday's figures, empty if nothing was received that day. */
+    public synchronized Day getYesterday(long now) {
+        rollTo(epochDay(now));
+        return yesterday;
+    }
+
+    /** @return Today's senders with the highest totals first, at most {@code limit} of them. */
+    public synchronized List<Sender> getTopSenders(long now, int limit) {
+        rollTo(epochDay(now));
+        List<Sender> result = new ArrayList<>(senders);
+        for (int i = 0; i < capacity; i++) {
+            if (hashes[i] != 0) result.add(new Sender(names[i], counts[i], totals[i]));
+        }
+        result.sort((a, b) -> a.totalMinor != b.totalMinor ? Long.compare(b.totalMinor, a.totalMinor) : Integer.compare(b.count, a.count));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(0, limit))) : result;
+    }
+
+    /** @return Today's payments from senders beyond the table's capacity, or null if there were none. */
+    public synchronized Sender getOtherSenders(long now) {
+        rollTo(epochDay(now));
+        return othersCount > 0 ? new Sender(null, othersCount, othersTotal) : null;
+    }
+
+    public synchronized int getSenderCount() {
+        return senders;
+    }
+
+    public synchronized long getWriteErrors() {
+        return writeErrors;
+    }
+
+    public synchronized void close() {
+        try {
+            if (file != null) file.close();
+        } catch (IOException ignored) {
+        }
+        file = null;
+    }
+
+    /** @return The local day number of a wall-clock time. */
+    public long epochDay(long at) {
+        TimeZone tz = zone != null ? zone : TimeZone.getDefault();
+        return Math.floorDiv(at + tz.getOffset(at), MILLIS_PER_DAY);
+    }
+
+    /** @return The day as an ISO date such as 2024-10-17. */
+    public static String formatDay(long epochDay) {
+        // Days to civil date, after H. Hinnant's algorithm; java.time needs API 26.
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, day);
+    }
+
+    private void rollTo(long day) {
+        if (day <= today.epochDay) return;
+        yesterday = today.epochDay == day - 1 ? today : new Day(day - 1, 0, 0, null, 0, 0);
+        today = new Day(day, 0, 0, null, 0, 0);
+        Arrays.fill(hashes, 0L);
+        Arrays.fill(counts, 0);
+        Arrays.fill(totals, 0L);
+        Arrays.fill(names, null);
+        senders = 0;
+        othersCount = 0;
+        othersTotal = 0;
+        if (file == null) return;
+        try {
+            file.setLength(HEADER_BYTES);
+            file.setLength(HEADER_BYTES + (long) SLOT_BYTES * capacity);
+        } catch (IOException e) {
+            writeErrors++;
+        }
+        writeDay(OFFSET_TODAY, today);
+        writeDay(OFFSET_YESTERDAY, yesterday);
+        writeOthers();
+    }
+
+    private int find(long hash) {
+        int mask = capacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (hashes[slot] != 0 && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long hash(String name) {
+        // FNV-1a over the lower-cased name; 0 marks an empty slot.
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= Character.toLowerCase(name.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        return h != 0 ? h : 1;
+    }
+
+    private void writeDay(int offset, Day day) {
+        if (file == null) return;
+        try {
+            file.seek(offset);
+            file.writeLong(day.epochDay);
+            file.writeInt(day.count);
+            file.writeInt(day.invalid);
+            file.writeInt(day.otherCurrency);
+            file.writeLong(day.totalMinor);
+            file.write(fixed(day.currency, CURRENCY_BYTES));
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    private void writeOthers() {
+        if (file == null) return;
+        try {
+            file.seek(OFFSET_OTHERS);
+            file.writeInt(othersCount);
+            file.writeLong(othersTotal);
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    private void writeSlot(int slot) {
+        if (file == null) return;
+        try {
+            file.seek(HEADER_BYTES + (long) SLOT_BYTES * slot);
+            file.writeLong(hashes[slot]);
+            file.writeInt(counts[slot]);
+            file.writeLong(totals[slot]);
+            file.write(fixed(names[slot], NAME_BYTES));
+        } catch (IOException e) {
+            writeErrors++;
+        }
+    }
+
+    /** @return A 2-byte length followed by the UTF-8 value, truncated and padded to {@code size} bytes. */
+    private static byte[] fixed(String value, int size) {
+        byte[] out = new byte[2 + size];
+        if (value == null) {
+            out[0] = (byte) 0xFF;
+            out[1] = (byte) 0xFF;
+            return out;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, size);
+        // Do not cut a multi-byte character in half.
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xC0) == 0x80) length--;
+        out[0] = (byte) (length >>> 8);
+        out[1] = (byte) length;
+        System.arraycopy(bytes, 0, out, 2, length);
+        return out;
+    }
+
+    private static String readFixed(RandomAccessFile in, int size) throws IOException {
+        byte[] out = new byte[2 + size];
+        in.readFully(out);
+        int length = ((out[0] & 0xFF) << 8) | (out[1] & 0xFF);
+        if (length == 0xFFFF) return null;
+        return new String(out, 2, Math.min(length, size), StandardCharsets.UTF_8);
+    }
+
+    private static Day readDay(RandomAccessFile in) throws IOException {
+        long epochDay = in.readLong();
+        int count = in.readInt();
+        int invalid = in.readInt();
+        int otherCurrency = in.readInt();
+        long totalMinor = in.readLong();
+        String currency = readFixed(in, CURRENCY_BYTES);
+        return new Day(epochDay, count, totalMinor, currency, invalid, otherCurrency);
+    }
+
+    private void open(File path) {
+        if (path == null) return;
+        try {
+            File parent = path.getParentFile();
+            if (parent != null && !parent.isDirectory()) parent.mkdirs();
+            file = new RandomAccessFile(path, "rw");
+            if (file.length() == HEADER_BYTES + (long) SLOT_BYTES * capacity) {
+                file.seek(0);
+                if (file.readInt() == MAGIC && file.readInt() == capacity) {
+                    today = readDay(file);
+                    yesterday = readDay(file);
+                    othersCount = file.readInt();
+                    othersTotal = file.readLong();
+                    for (int i = 0; i < capacity; i++) {
+                        hashes[i] = file.readLong();
+                        counts[i] = file.readInt();
+                        totals[i] = file.readLong();
+                        names[i] = readFixed(file, NAME_BYTES);
+                        if (hashes[i] != 0) senders++;
+                    }
+                    return;
+                }
+            }
+            today = new Day(-1, 0, 0, null, 0, 0);
+            yesterday = today;
+            file.setLength(0);
+            file.setLength(HEADER_BYTES + (long) SLOT_BYTES * capacity);
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(capacity);
+            writeDay(OFFSET_TODAY, today);
+            writeDay(OFFSET_YESTERDAY, yesterday);
+            writeOthers();
+        } catch (IOException e) {
+            writeErrors++;
+            Arrays.fill(hashes, 0L);
+            senders = 0;
+            close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.digikhata.audionotification;
+
+/**
+ * Token bucket that keeps notification posts under the platform's per-app rate limit.
+ * Time is passed in by the caller so the limiter can be driven by any clock.
+ */
+public class PostRateLimiter {
+    private final double permitsPerMs;
+    private final int burst;
+    private double available;
+    private long lastRefillAt = -1;
+
+    /**
+     * @param permitsPerSecond The sustained post rate.
+     * @param burst The number of posts allowed back to back after an idle period.
+     */
+    public PostRateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerMs = permitsPerSecond / 1000.0;
+        this.burst = Math.max(1, burst);
+        this.available = this.burst;
+    }
+
+    public synchronized boolean tryAcquire(long nowMs) {
+        refill(nowMs);
+        if (available >= 1) {
+            available -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** @return Milliseconds until a permit will be available, 0 if one is available now. */
+    public synchronized long delayUntilAvailable(long nowMs) {
+        refill(nowMs);
+        if (available >= 1) return 0;
+        return (long) Math.ceil((1 - available) / permitsPerMs);
+    }
+
+    private void refill(long nowMs) {
+        if (lastRefillAt >= 0 && nowMs > lastRefillAt) {
+            available = Math.min(burst, available + (nowMs - lastRefillAt) * permitsPerMs);
+        }
+        if (nowMs > lastRefillAt) lastRefillAt = nowMs;
+    }
+}
@@ -0,0 +1,139 @@
+package com.digikhata.audionotification;
+
+/**
+ * Turns minor-unit amounts into words using Indian numbering, e.g. 12550075 paise becomes
+ * "one lakh twenty five thousand five hundred rupees and seventy five paise". Speaking
+ * words instead of digits avoids engine-specific number normalization and
+ * mispronunciations such as "five hundred point zero".
+ * <p>
+ * Each thread reuses a single buffer, so building the phrase allocates only the
+ * resulting String.
+ */
+public final class SpokenAmount {
+    private static final String[] ONES = {
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+            "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen", "nineteen"
+    };
+    private static final String[] TENS = {
+            "", "", "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty", "ninety"
+    };
+    private static final long CRORE = 10_000_000L;
+    private static final long LAKH = 100_000L;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    /** Spoken names of a currency's major and minor units. */
+    public static final class Unit {
+        public static final Unit RUPEE = new Unit("rupee", "rupees", "paisa", "paise");
+        public static final Unit DOLLAR = new Unit("dollar", "dollars", "cent", "cents");
+
+        final String majorSingular;
+        final String majorPlural;
+        final String minorSingular;
+        final String minorPlural;
+
+        public Unit(String majorSingular, String majorPlural, String minorSingular, String minorPlural) {
+            this.majorSingular = majorSingular;
+            this.majorPlural = majorPlural;
+            this.minorSingular = minorSingular;
+            this.minorPlural = minorPlural;
+        }
+    }
+
+    private SpokenAmount() {}
+
+    /**
+     * Resolves the spoken unit for a currency symbol or code.
+     * @return The unit, or null if the currency should be spoken as given.
+     */
+    public static Unit unitFor(String currency) {
+        if (currency == null) return Unit.RUPEE;
+        String c = currency.trim();
+        if (c.isEmpty() || c.equals("₹") || c.equalsIgnoreCase("INR") || c.equalsIgnoreCase("Rs")
+                || c.equalsIgnoreCase("Rs.") || c.equalsIgnoreCase("rupees")) {
+            return Unit.RUPEE;
+        }
+        if (c.equals("$") || c.equalsIgnoreCase("USD")) return Unit.DOLLAR;
+        return null;
+    }
+
+    /** @return The amount as words with the currency unit, e.g. "one thousand two hundred fifty rupees". */
+    public static String toWords(long minor, String currency) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return appendWords(minor, currency, sb).toString();
+    }
+
+    /** Appends the amount as words with the currency unit. */
+    public static StringBuilder appendWords(long minor, String currency, StringBuilder out) {
+        Unit unit = unitFor(currency);
+        if (minor < 0) {
+            out.append("minus ");
+            minor = -minor;
+        }
+        long major = minor / 100;
+        long fraction = minor % 100;
+        if (unit == null) {
+            // Unknown currency: keep the code the sender used and speak only the number.
+            out.append(currency).append(' ');
+            appendNumber(major, out);
+            if (fraction != 0) {
+                out.append(" point ").append(ONES[(int) (fraction / 10)]);
+                if (fraction % 10 != 0) out.append(' ').append(ONES[(int) (fraction % 10)]);
+            }
+            return out;
+        }
+        if (major > 0 || fraction == 0) {
+            appendNumber(major, out);
+            out.append(' ').append(major == 1 ? unit.majorSingular : unit.majorPlural);
+        }
+        if (fraction > 0) {
+            if (major > 0) out.append(" and ");
+            appendNumber(fraction, out);
+            out.append(' ').append(fraction == 1 ? unit.minorSingular : unit.minorPlural);
+        }
+        return out;
+    }
+
+    /** Appends a non-negative whole number in Indian numbering words. */
+    public static StringBuilder appendNumber(long n, StringBuilder out) {
+        if (n == 0) {
+            return out.append(ONES[0]);
+        }
+        int mark = out.length();
+        if (n >= CRORE) {
+            appendNumber(n / CRORE, out).append(" crore");
+            n %= CRORE;
+        }
+        if (n >= LAKH) {
+            separate(out, mark);
+            appendBelowHundred((int) (n / LAKH), out).append(" lakh");
+            n %= LAKH;
+        }
+        if (n >= 1000) {
+            separate(out, mark);
+            appendBelowHundred((int) (n / 1000), out).append(" thousand");
+            n %= 1000;
+        }
+        if (n >= 100) {
+            separate(out, mark);
+            out.append(ONES[(int) (n / 100)]).append(" hundred");
+            n %= 100;
+        }
+        if (n > 0) {
+            separate(out, mark);
+            appendBelowHundred((int) n, out);
+        }
+        return out;
+    }
+
+    private static void separate(StringBuilder out, int mark) {
+        if (out.length() > mark) out.append(' ');
+    }
+
+    private static StringBuilder appendBelowHundred(int n, StringBuilder out) {
+        if (n < 20) return out.append(ONES[n]);
+        out.append(TENS[n / 10]);
+        if (n % 10 != 0) out.append(' ').append(ONES[n % 10]);
+        return out;
+    }
+}
@@ -0,0 +1,267 @@
+package com.digikhata.audionotification;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the FCM token with the backend without flooding it. The last token that was
+ * registered successfully is kept in a file and an unchanged token is never uploaded
+ * again; token changes within the coalescing window replace each other so only the last
+ * one is sent. Failed uploads are retried with jittered exponential backoff, so devices
+ * that restart together do not retry in lockstep.
+ */
+public class TokenSync {
+    public static final long DEFAULT_COALESCE_MS = 2000;
+    public static final long BASE_BACKOFF_MS = 2000;
+    public static final long MAX_BACKOFF_MS = 10 * 60 * 1000;
+    private static final int MAGIC = 0x544B5331;
+
+    /** Sends a token to the backend. */
+    public interface Endpoint {
+        /**
+         * @throws RejectedException if the backend refused the token; it is not retried.
+         * @throws IOException on any other failure; the upload is retried.
+         */
+        void register(String token) throws IOException;
+    }
+
+    /** A permanent refusal, such as an HTTP 4xx response. */
+    public static class RejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private final File file;
+    private final ScheduledExecutorService executor;
+    private final Random random;
+    private final long coalesceMs;
+    private final Runnable upload = this::upload;
+    private Endpoint endpoint;
+    private String registered;
+    private String pending;
+    private int attempts;
+    private ScheduledFuture<?> scheduled;
+    private boolean uploading;
+
+    private long requested;
+    private long skipped;
+    private long coalesced;
+    private long uploads;
+    private long failures;
+    private long rejected;
+    private long writeErrors;
+
+    /**
+     * @param file The file the registered and pending tokens are kept in, or null to keep them in memory only.
+     * @param endpoint The backend, or null to hold tokens until {@link #setEndpoint} is called.
+     * @param executor Runs the uploads; one thread is enough.
+     * @param random The source of backoff jitter.
+     */
+    public TokenSync(File file, Endpoint endpoint, ScheduledExecutorService executor, Random random, long coalesceMs) {
+        this.file = file;
+        this.endpoint = endpoint;
+        this.executor = executor;
+        this.random = random;
+        this.coalesceMs = coalesceMs;
+        load();
+        synchronized (this) {
+            // A token that was pending when the process died is sent again.
+            if (pending != null) schedule(coalesceMs);
+        }
+    }
+
+    /** Hands over the current token, from onNewToken or at startup. Never blocks on the network. */
+    public synchronized void onToken(String token) {
+        if (token == null || token.isEmpty()) return;
+        requested++;
+        if (token.equals(pending) || (pending == null && token.equals(registered))) {
+            skipped++;
+            return;
+        }
+        if (token.equals(registered)) {
+            if (uploading) {
+                // The other token is on its way and will replace this one; send this one again after it.
+                coalesced++;
+                pending = token;
+                save();
+                return;
+            }
+            // Changed and changed back before the upload went out.
+            pending = null;
+            cancel();
+            skipped++;
+            save();
+            return;
+        }
+        if (pending != null) coalesced++;
+        pending = token;
+        attempts = 0;
+        save();
+        schedule(coalesceMs);
+    }
+
+    /** Replaces the backend; a pending token is sent to the new one. */
+    public synchronized void setEndpoint(Endpoint endpoint) {
+        this.endpoint = endpoint;
+        if (endpoint != null && pending != null) {
+            attempts = 0;
+            schedule(0);
+        }
+    }
+
+    private void schedule(long delayMs) {
+        if (uploading) return; // The running upload reschedules if the token changed.
+        cancel();
+        scheduled = executor.schedule(upload, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancel() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void upload() {
+        String token;
+        Endpoint target;
+        synchronized (this) {
+            scheduled = null;
+            token = pending;
+            target = endpoint;
+            if (token == null || target == null) return;
+            uploading = true;
+        }
+        IOException error = null;
+        try {
+            target.register(token);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+        synchronized (this) {
+            uploading = false;
+            if (error == null) {
+                uploads++;
+                registered = token;
+                attempts = 0;
+                if (token.equals(pending)) pending = null;
+                save();
+            } else if (error instanceof RejectedException) {
+                rejected++;
+                if (token.equals(pending)) pending = null;
+                save();
+            } else {
+                failures++;
+                if (token.equals(pending)) {
+                    schedule(backoff(++attempts));
+                    return;
+                }
+            }
+            if (pending == null) return;
+            if (pending.equals(registered)) {
+                pending = null;
+                save();
+            } else {
+                schedule(coalesceMs);
+            }
+        }
+    }
+
+    /** @return Half the exponential delay plus a random share of the other half. */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 20));
+        long half = ceiling / 2;
+        return half + (long) (random.nextDouble() * (ceiling - half));
+    }
+
+    public synchronized String getRegisteredToken() {
+        return registered;
+    }
+
+    public synchronized String getPendingToken() {
+        return pending;
+    }
+
+    public synchronized long getRequested() {
+        return requested;
+    }
+
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    public synchronized long getUploads() {
+        return uploads;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getWriteErrors() {
+        return writeErrors;
+    }
+
+    private void save() {
+        if (file == null) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory()) parent.mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                writeString(out, registered);
+                writeString(out, pending);
+            }
+            if (!tmp.renameTo(file)) throw new IOException("rename failed");
+        } catch (IOException e) {
+            writeErrors++;
+            tmp.delete();
+        }
+    }
+
+    private synchronized void load() {
+        if (file == null || !file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) return;
+            registered = readString(in);
+            pending = readString(in);
+        } catch (IOException e) {
+            // Without the file the next token is simply uploaded again.
+            registered = null;
+            pending = null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.digikhata.audionotification;
+
+import java.io.File;
+
+/**
+ * Size-bounded LRU of synthesized announcements on disk. Entries are keyed by the
+ * normalized announcement text plus the engine locale and voice.
+ */
+public class TtsSynthesisCache extends DiskLruCache {
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    public TtsSynthesisCache(File directory, long maxBytes) {
+        super(directory, ".wav", maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Builds the cache key for an announcement.
+     * @param text The text that will be spoken.
+     * @param locale The engine locale tag.
+     * @param voice The engine voice name, may be null.
+     * @return A 16 character hex key that is safe to use as a file name.
+     */
+    public static String keyFor(String text, String locale, String voice) {
+        return hashKey(normalize(text) + "|" + (locale != null ? locale : "") + "|" + (voice != null ? voice : ""));
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Covers priority ordering, coalescing, acknowledgement and the age-based expiry and
+ * shortening of {@link AnnouncementQueue}.
+ */
+public class AnnouncementQueueTest {
+
+    private static Announcement payment(String amount, long sentAt) {
+        Announcement announcement = Announcement.payment(amount, "₹", "Ravi");
+        announcement.setTiming(sentAt, sentAt);
+        return announcement;
+    }
+
+    @Test
+    public void prioritizesLargerAmountsThenEarlierDeadlines() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 20);
+        Announcement small = payment("50", now - 2000);
+        Announcement large = payment("25000", now);
+        Announcement mediumOld = payment("500", now - 1000);
+        Announcement mediumNew = payment("700", now);
+        Announcement text = Announcement.text("hello");
+        queue.offer(text);
+        queue.offer(small);
+        queue.offer(mediumNew);
+        queue.offer(mediumOld);
+        queue.offer(large);
+
+        assertSame(large, queue.poll(now));
+        assertSame(mediumOld, queue.poll(now));
+        assertSame(mediumNew, queue.poll(now));
+        assertSame(small, queue.poll(now));
+        assertSame(text, queue.poll(now));
+        assertNull(queue.poll(now));
+        assertEquals(4 + 3 + 2 + 1, queue.getPreempted());
+    }
+
+    @Test
+    public void priorityGrowsWithOrderOfMagnitude() {
+        assertEquals(1, Announcement.priorityFor(Money.parseMinor("99.99")));
+        assertEquals(2, Announcement.priorityFor(Money.parseMinor("100")));
+        assertEquals(3, Announcement.priorityFor(Money.parseMinor("1000")));
+        assertEquals(4, Announcement.priorityFor(Money.parseMinor("10000")));
+        assertEquals(5, Announcement.priorityFor(Money.parseMinor("100000")));
+        assertEquals(5, Announcement.priorityFor(Money.parseMinor("100000000")));
+        assertEquals(1, Announcement.priorityFor(Money.INVALID));
+        assertEquals(Announcement.PRIORITY_TEXT, Announcement.text("hi").getPriority());
+    }
+
+    @Test
+    public void dropsPaymentsPastExpiryOnArrivalAndWhileWaiting() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 20);
+        queue.setAgeLimits(10000, 60000);
+        assertFalse(queue.offer(payment("500", now - 10 * 60000)));
+        assertEquals(1, queue.getExpired());
+
+        Announcement waiting = payment("500", now - 50000);
+        assertTrue(queue.offer(waiting));
+        assertNull(queue.poll(now + 20000));
+        assertEquals(2, queue.getExpired());
+    }
+
+    @Test
+    public void shortensStalePayments() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 20);
+        queue.setAgeLimits(10000, 60000);
+        queue.offer(payment("500", now - 20000));
+        queue.offer(payment("500", now));
+
+        // Same priority, so the one closer to its deadline goes first.
+        Announcement stale = queue.poll(now);
+        assertTrue(stale.isShortened());
+        assertEquals("five hundred rupees received", AnnouncementText.forAnnouncement(stale, "Shop"));
+        Announcement fresh = queue.poll(now);
+        assertFalse(fresh.isShortened());
+        assertEquals("five hundred rupees received from Ravi on Shop", AnnouncementText.forAnnouncement(fresh, "Shop"));
+        assertEquals(1, queue.getShortened());
+    }
+
+    @Test
+    public void coalescedSummaryKeepsHighestPriority() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 2);
+        queue.offer(payment("50", now));
+        queue.offer(payment("60", now));
+        queue.offer(payment("150000", now));
+        assertEquals(1, queue.size());
+        Announcement summary = queue.poll(now);
+        assertEquals(3, summary.getPaymentCount());
+        assertEquals(5, summary.getPriority());
+    }
+
+    @Test
+    public void acknowledgedPaymentIsSkipped() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 20);
+        Announcement first = payment("500", now);
+        Announcement second = payment("700", now);
+        queue.offer(first);
+        queue.offer(second);
+
+        assertTrue(second.acknowledgePayment());
+        assertSame(first, queue.poll(now));
+        assertNull(queue.poll(now));
+        assertEquals(1, queue.getCancelled());
+        assertFalse(queue.offer(second));
+    }
+
+    @Test
+    public void summaryIsCancelledOnlyOnceEveryPaymentIsAcknowledged() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(20, 1);
+        Announcement first = payment("50", now);
+        Announcement second = payment("60", now);
+        queue.offer(first);
+        queue.offer(second);
+        assertEquals(1, queue.size());
+
+        Announcement summary = second.resolve();
+        assertSame(first, summary);
+        assertFalse(summary.acknowledgePayment());
+        assertTrue(first.resolve().acknowledgePayment());
+        assertNull(queue.poll(now));
+    }
+
+    @Test
+    public void fullQueueFoldsPaymentIntoPendingPayment() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(1, 1);
+        Announcement first = payment("50", now);
+        Announcement second = payment("60", now);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+
+        assertEquals(1, queue.size());
+        assertEquals(0, queue.getDropped());
+        assertSame(first, second.resolve());
+        assertEquals(2, first.getPaymentCount());
+        assertEquals(11000, first.getTotalMinor());
+    }
+
+    @Test
+    public void fullQueueOfTextMakesRoomForPayment() {
+        long now = System.currentTimeMillis();
+        AnnouncementQueue queue = new AnnouncementQueue(2, 2);
+        Announcement oldest = Announcement.text("Welcome");
+        assertTrue(queue.offer(oldest));
+        assertTrue(queue.offer(Announcement.text("Settlement done")));
+        assertFalse(queue.offer(Announcement.text("Dropped")));
+
+        Announcement payment = payment("75", now);
+        assertTrue(queue.offer(payment));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getDropped());
+        assertSame(payment, queue.poll(now));
+        assertEquals("Settlement done", queue.poll(now).getText());
+        assertNull(queue.poll(now));
+    }
+}
@@ -0,0 +1,116 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AnnouncementRetryQueueTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Announcement payment(String amount, long sentAt) {
+        Announcement announcement = Announcement.payment(amount, "₹", "Ramesh");
+        announcement.setTiming(sentAt, sentAt + 100);
+        return announcement;
+    }
+
+    @Test
+    public void backsOffExponentiallyUntilOutOfAttempts() {
+        AnnouncementRetryQueue queue = new AnnouncementRetryQueue(null, 4, 0);
+        Announcement announcement = payment("500", NOW);
+        long now = NOW;
+        for (int attempt = 1; attempt <= AnnouncementRetryQueue.MAX_ATTEMPTS; attempt++) {
+            assertTrue(queue.add(announcement, now));
+            long delay = Math.min(AnnouncementRetryQueue.MAX_DELAY_MS, AnnouncementRetryQueue.BASE_DELAY_MS << (attempt - 1));
+            assertEquals(now + delay, queue.nextDueAt());
+            assertTrue(queue.takeDue(now + delay - 1).isEmpty());
+            assertEquals(1, queue.takeDue(now + delay).size());
+            now += delay;
+        }
+        assertFalse(queue.add(announcement, now));
+        assertEquals(1, queue.getAbandoned());
+        assertEquals(-1, queue.nextDueAt());
+    }
+
+    @Test
+    public void abandonsAnnouncementsPastMaxAge() {
+        AnnouncementRetryQueue queue = new AnnouncementRetryQueue(null, 4, 10_000);
+        assertFalse(queue.add(payment("100", NOW - 20_000), NOW));
+        assertTrue(queue.add(payment("200", NOW - 9_500), NOW));
+        assertTrue(queue.takeDue(NOW + AnnouncementRetryQueue.BASE_DELAY_MS).isEmpty());
+        assertEquals(0, queue.size());
+        assertEquals(2, queue.getAbandoned());
+    }
+
+    @Test
+    public void evictsOldestWhenFull() {
+        AnnouncementRetryQueue queue = new AnnouncementRetryQueue(null, 2, 0);
+        queue.add(payment("100", NOW - 3000), NOW);
+        queue.add(payment("200", NOW - 1000), NOW);
+        queue.add(payment("300", NOW - 2000), NOW);
+        List<Announcement> due = queue.takeDue(NOW + AnnouncementRetryQueue.MAX_DELAY_MS);
+        assertEquals(2, due.size());
+        assertEquals("200", due.get(0).getAmount());
+        assertEquals("300", due.get(1).getAmount());
+        assertEquals(1, queue.getAbandoned());
+    }
+
+    @Test
+    public void survivesReopen() throws Exception {
+        File file = new File(folder.newFolder(), "retry.bin");
+        AnnouncementRetryQueue queue = new AnnouncementRetryQueue(file, 4, 0);
+        Announcement summary = payment("100", NOW);
+        summary.absorb(payment("250.50", NOW));
+        summary.setLanguage("hi-IN");
+        queue.add(summary, NOW);
+        queue.add(Announcement.text("Test announcement"), NOW);
+
+        AnnouncementRetryQueue reopened = new AnnouncementRetryQueue(file, 4, 0);
+        assertEquals(2, reopened.size());
+        List<Announcement> due = reopened.takeDue(NOW + AnnouncementRetryQueue.BASE_DELAY_MS);
+        assertEquals(2, due.size());
+        Announcement restored = due.get(0);
+        assertTrue(restored.isSummary());
+        assertEquals(2, restored.getPaymentCount());
+        assertEquals(35050, restored.getTotalMinor());
+        assertEquals(summary.getPriority(), restored.getPriority());
+        assertEquals("hi-IN", restored.getLanguage());
+        assertEquals(NOW, restored.getSentAt());
+        assertEquals(1, restored.getAttempts());
+        assertEquals("Test announcement", due.get(1).getText());
+        assertFalse(due.get(1).isPayment());
+
+        assertEquals(0, new AnnouncementRetryQueue(file, 4, 0).size());
+    }
+
+    @Test
+    public void handsOverUnspokenAnnouncementsAsDueWithoutCountingAnAttempt() throws Exception {
+        File file = new File(folder.newFolder(), "retry.bin");
+        AnnouncementRetryQueue queue = new AnnouncementRetryQueue(file, 2, 10_000);
+        queue.setCapacity(3);
+        queue.addAll(Arrays.asList(
+                payment("100", NOW - 3000),
+                payment("200", NOW - 20_000),
+                payment("300", NOW - 2000),
+                payment("400", NOW - 1000),
+                payment("500", NOW)), NOW);
+        // One was too old and the oldest of the rest made room for the newest.
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.getAbandoned());
+        assertEquals(NOW, queue.nextDueAt());
+
+        List<Announcement> due = new AnnouncementRetryQueue(file, 3, 10_000).takeDue(NOW);
+        assertEquals(3, due.size());
+        assertEquals("300", due.get(0).getAmount());
+        assertEquals("500", due.get(2).getAmount());
+        assertEquals(0, due.get(0).getAttempts());
+    }
+}
@@ -0,0 +1,80 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Covers the {@link ClipBank} layout and the clip sequences built by {@link ClipPhrase}.
+ */
+public class ClipPhraseTest {
+    private static final String[] WORDS = {
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+            "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen", "nineteen",
+            "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty", "ninety",
+            "hundred", "thousand", "lakh", "crore", "and", "rupee", "rupees", "paisa", "paise", "received"
+    };
+
+    private static ClipBank bank(String... words) throws Exception {
+        Map<String, byte[]> clips = new LinkedHashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            clips.put(words[i], new byte[(i + 1) * ClipBank.BYTES_PER_FRAME]);
+        }
+        return ClipBank.parse(ByteBuffer.wrap(ClipBank.encode(16000, clips)));
+    }
+
+    private static String spoken(int[] sequence, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[sequence[i]]);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void parsesEncodedBank() throws Exception {
+        ClipBank bank = bank(WORDS);
+        assertEquals(16000, bank.getSampleRate());
+        assertEquals(WORDS.length, bank.getClipCount());
+        int five = bank.indexOf("five");
+        assertEquals(6, bank.getFrames(five));
+        assertEquals(12, bank.clip(five).remaining());
+        assertEquals(-1, bank.indexOf("dollars"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedBank() throws Exception {
+        byte[] data = ClipBank.encode(16000, Map.of("one", new byte[8]));
+        ClipBank.parse(ByteBuffer.wrap(data, 0, data.length - 2).slice());
+    }
+
+    @Test
+    public void buildsAmountPhrases() throws Exception {
+        ClipPhrase phrase = new ClipPhrase(bank(WORDS));
+        int[] out = new int[ClipPhrase.MAX_CLIPS];
+        int n = phrase.build(50000, SpokenAmount.Unit.RUPEE, out);
+        assertEquals("five hundred rupees received", spoken(out, n));
+        n = phrase.build(12550075, SpokenAmount.Unit.RUPEE, out);
+        assertEquals("one lakh twenty five thousand five hundred rupees and seventy five paise received",
+                spoken(out, n));
+        n = phrase.build(100, SpokenAmount.Unit.RUPEE, out);
+        assertEquals("one rupee received", spoken(out, n));
+        n = phrase.build(1, SpokenAmount.Unit.RUPEE, out);
+        assertEquals("one paisa received", spoken(out, n));
+    }
+
+    @Test
+    public void reportsMissingWords() throws Exception {
+        ClipPhrase phrase = new ClipPhrase(bank(WORDS));
+        int[] out = new int[ClipPhrase.MAX_CLIPS];
+        assertEquals(-1, phrase.build(500, SpokenAmount.Unit.DOLLAR, out));
+        assertEquals(-1, phrase.build(-500, SpokenAmount.Unit.RUPEE, out));
+        assertTrue(new ClipPhrase(bank("five", "hundred", "rupees")).build(50000, SpokenAmount.Unit.RUPEE, out) < 0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class EventBatcherTest {
+
+    @Test
+    public void burstIsSplitIntoBoundedBatches() {
+        EventBatcher<Integer> batcher = new EventBatcher<>(200, 20);
+        assertTrue(batcher.add(0));
+        for (int i = 1; i < 50; i++) {
+            assertFalse(batcher.add(i));
+        }
+        assertEquals(20, batcher.drain().size());
+        assertEquals(20, batcher.drain().size());
+        List<Integer> last = batcher.drain();
+        assertEquals(10, last.size());
+        assertEquals(Integer.valueOf(49), last.get(9));
+        assertFalse(batcher.hasPending());
+        assertEquals(3, batcher.getBatches());
+        assertEquals(50, batcher.getDelivered());
+    }
+
+    @Test
+    public void overflowDropsOldestAndReportsOnce() {
+        EventBatcher<Integer> batcher = new EventBatcher<>(3, 10);
+        for (int i = 0; i < 5; i++) {
+            batcher.add(i);
+        }
+        List<Integer> batch = batcher.drain();
+        assertEquals(3, batch.size());
+        assertEquals(Integer.valueOf(2), batch.get(0));
+        assertEquals(2, batcher.takeDropped());
+        assertEquals(0, batcher.takeDropped());
+        assertEquals(2, batcher.getDropped());
+        assertTrue(batcher.drain().isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Covers wrap-around, formatting and clearing of the {@link FlightRecorder} ring buffer.
+ */
+public class FlightRecorderTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new FlightRecorder(5).getCapacity());
+        assertEquals(8, new FlightRecorder(8).getCapacity());
+    }
+
+    @Test
+    public void formatsNamedArgumentsAndSkipsUnknownOnes() {
+        FlightRecorder recorder = new FlightRecorder(8);
+        recorder.record(FlightRecorder.SPEECH_STARTED, 7, 41);
+        recorder.record(FlightRecorder.TOKEN_REFRESHED);
+        recorder.record(FlightRecorder.SPEECH_DONE, 7);
+
+        List<String> lines = recorder.dump(0);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0), lines.get(0).endsWith(" SPEECH_STARTED utterance=7 sinceDispatchMs=41"));
+        assertTrue(lines.get(1), lines.get(1).matches("\\S+ \\+\\d+ms TOKEN_REFRESHED"));
+        assertTrue(lines.get(2), lines.get(2).endsWith(" SPEECH_DONE utterance=7"));
+    }
+
+    @Test
+    public void keepsOnlyTheMostRecentEvents() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(FlightRecorder.RETRY_DUE, i);
+        }
+
+        List<String> lines = recorder.dump(0);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).endsWith("count=6"));
+        assertTrue(lines.get(3).endsWith("count=9"));
+        assertEquals(10, recorder.getRecorded());
+
+        List<String> last = recorder.dump(2);
+        assertEquals(2, last.size());
+        assertTrue(last.get(0).endsWith("count=8"));
+    }
+
+    @Test
+    public void clearForgetsRecordedEvents() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        recorder.record(FlightRecorder.STOPPED_ALL, 3);
+        recorder.clear();
+        assertTrue(recorder.dump(0).isEmpty());
+
+        recorder.record(FlightRecorder.STOPPED_ALL, 1);
+        assertEquals(1, recorder.dump(0).size());
+    }
+}
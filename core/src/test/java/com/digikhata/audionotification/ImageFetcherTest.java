@@ -0,0 +1,95 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Exercises {@link ImageFetcher} against a local HTTP stand-in.
+ */
+public class ImageFetcherTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/avatar.png", exchange -> {
+            byte[] body = new byte[4096];
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow.png", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[16]);
+                out.flush();
+                Thread.sleep(2000);
+                out.write(new byte[16]);
+            } catch (InterruptedException | IOException ignored) {
+            }
+        });
+        server.createContext("/huge.png", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] chunk = new byte[8192];
+                for (int i = 0; i < 64; i++) {
+                    out.write(chunk);
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        server.createContext("/missing.png", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchReturnsBody() throws Exception {
+        ImageFetcher fetcher = new ImageFetcher(1000, 1000, 64 * 1024);
+        assertEquals(4096, fetcher.fetch(baseUrl + "/avatar.png").length);
+    }
+
+    @Test
+    public void fetchGivesUpOnSlowResponse() {
+        ImageFetcher fetcher = new ImageFetcher(1000, 200, 64 * 1024);
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/slow.png"));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1500);
+    }
+
+    @Test
+    public void fetchRejectsOversizedBody() {
+        ImageFetcher fetcher = new ImageFetcher(1000, 1000, 64 * 1024);
+        assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/huge.png"));
+    }
+
+    @Test
+    public void fetchRejectsErrorStatus() {
+        ImageFetcher fetcher = new ImageFetcher(1000, 1000, 64 * 1024);
+        assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/missing.png"));
+    }
+
+    @Test
+    public void fetchRejectsNonHttpScheme() {
+        ImageFetcher fetcher = new ImageFetcher(1000, 1000, 64 * 1024);
+        assertThrows(IOException.class, () -> fetcher.fetch("file:///etc/hosts"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void valueOnABoundBelongsToThatBucket() {
+        LatencyHistogram onBound = new LatencyHistogram("onBound");
+        onBound.record(10);
+        onBound.record(1000);
+        assertEquals(10, onBound.getPercentile(50));
+
+        LatencyHistogram pastBound = new LatencyHistogram("pastBound");
+        pastBound.record(11);
+        pastBound.record(1000);
+        assertEquals(20, pastBound.getPercentile(50));
+    }
+
+    @Test
+    public void percentilesAreClampedToTheLargestValue() {
+        LatencyHistogram histogram = new LatencyHistogram("clamped");
+        histogram.record(11);
+        assertEquals(11, histogram.getPercentile(100));
+
+        // Beyond the last bound there is no upper edge, so the maximum is reported.
+        histogram.record(2_000_000);
+        assertEquals(2_000_000, histogram.getPercentile(100));
+        assertEquals(20, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void negativeSamplesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("skew");
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void percentileUsesTheCeilingRank() {
+        LatencyHistogram histogram = new LatencyHistogram("uniform");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(50, histogram.getPercentile(50));
+        // Rank 51 falls in the 50..75 bucket.
+        assertEquals(75, histogram.getPercentile(50.5));
+        assertEquals(100, histogram.getPercentile(90));
+        assertEquals(100, histogram.getPercentile(150));
+    }
+
+    @Test
+    public void resetForgetsEverySample() {
+        LatencyHistogram histogram = new LatencyHistogram("reset");
+        histogram.record(300);
+        histogram.record(5000);
+        histogram.reset();
+
+        assertEquals("reset", histogram.getName());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getPercentile(99));
+
+        histogram.record(40);
+        assertEquals(40, histogram.getMin());
+        assertEquals(40, histogram.getMax());
+        assertEquals(40, histogram.getPercentile(99));
+    }
+}
@@ -0,0 +1,90 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MoneyTest {
+
+    @Test
+    public void parsesPlainAndGroupedAmounts() {
+        assertEquals(125000, Money.parseMinor("1250"));
+        assertEquals(125050, Money.parseMinor("1,250.5"));
+        assertEquals(125000075, Money.parseMinor(" 12,50,000.75 "));
+        assertEquals(50, Money.parseMinor(".5"));
+        assertEquals(500, Money.parseMinor("5."));
+        assertEquals(0, Money.parseMinor("0.00"));
+        // Grouping commas are not checked for position.
+        assertEquals(12300, Money.parseMinor("1,2,3"));
+    }
+
+    @Test
+    public void rejectsMoreThanTwoFractionDigits() {
+        assertEquals(Money.INVALID, Money.parseMinor("1.234"));
+        assertEquals(Money.INVALID, Money.parseMinor("0.001"));
+        assertEquals(12, Money.parseMinor("0.12"));
+    }
+
+    @Test
+    public void rejectsMisplacedSeparators() {
+        assertEquals(Money.INVALID, Money.parseMinor("1.2,3"));
+        assertEquals(Money.INVALID, Money.parseMinor("1.2.3"));
+        assertEquals(Money.INVALID, Money.parseMinor("1 000"));
+        assertEquals(Money.INVALID, Money.parseMinor("₹100"));
+        assertEquals(Money.INVALID, Money.parseMinor("100 INR"));
+    }
+
+    @Test
+    public void acceptsOnlyOneLeadingMinus() {
+        assertEquals(-5025, Money.parseMinor("-50.25"));
+        assertEquals(-5025, Money.parseMinor(" -50.25"));
+        assertEquals(Money.INVALID, Money.parseMinor("--5"));
+        assertEquals(Money.INVALID, Money.parseMinor("- 5"));
+        assertEquals(Money.INVALID, Money.parseMinor("5-"));
+        assertEquals(Money.INVALID, Money.parseMinor("-"));
+    }
+
+    @Test
+    public void rejectsInputWithoutDigits() {
+        assertEquals(Money.INVALID, Money.parseMinor(null));
+        assertEquals(Money.INVALID, Money.parseMinor(""));
+        assertEquals(Money.INVALID, Money.parseMinor("   "));
+        assertEquals(Money.INVALID, Money.parseMinor("."));
+        assertEquals(Money.INVALID, Money.parseMinor(","));
+        assertEquals(Money.INVALID, Money.parseMinor("-."));
+    }
+
+    @Test
+    public void rejectsAmountsThatWouldOverflow() {
+        assertEquals(9223372036854775799L, Money.parseMinor("92233720368547757.99"));
+        assertEquals(-9223372036854775799L, Money.parseMinor("-92233720368547757.99"));
+        assertEquals(Money.INVALID, Money.parseMinor("92233720368547758"));
+        assertEquals(Money.INVALID, Money.parseMinor("92233720368547759.99"));
+        assertEquals(Money.INVALID, Money.parseMinor("99999999999999999999"));
+    }
+
+    @Test
+    public void isValidOnlyRejectsTheMarker() {
+        assertTrue(Money.isValid(0));
+        assertTrue(Money.isValid(-1));
+        assertTrue(Money.isValid(Long.MAX_VALUE));
+        assertFalse(Money.isValid(Money.INVALID));
+        assertFalse(Money.isValid(Money.parseMinor("abc")));
+    }
+
+    @Test
+    public void groupsDigitsTheIndianWay() {
+        assertEquals("0", grouped(0));
+        assertEquals("0.05", grouped(5));
+        assertEquals("999.99", grouped(99999));
+        assertEquals("1,000", grouped(100000));
+        assertEquals("1,25,000", grouped(12500000));
+        assertEquals("1,23,45,678.90", grouped(1234567890));
+        assertEquals("-1,25,000.50", grouped(-12500050));
+        assertEquals("₹1,00,000", Money.appendIndianGrouped(10000000, new StringBuilder("₹")).toString());
+    }
+
+    private static String grouped(long minor) {
+        return Money.appendIndianGrouped(minor, new StringBuilder()).toString();
+    }
+}
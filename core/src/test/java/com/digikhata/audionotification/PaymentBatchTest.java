@@ -0,0 +1,81 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Covers decoding of the {@code payments} field of batched payment messages.
+ */
+public class PaymentBatchTest {
+    private static Map<String, String> message(String payments) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "payment");
+        data.put("currency", "₹");
+        data.put("lang", "hi-IN");
+        if (payments != null) data.put(PaymentBatch.FIELD, payments);
+        return data;
+    }
+
+    @Test
+    public void decodesEachLineAsAPayment() {
+        List<PaymentPayload> payments = PaymentBatch.decode(
+                message("TXN1|500|Ramesh Kumar\nTXN2|1250.50|Sita|$|en-US\n"), "m1");
+        assertEquals(2, payments.size());
+        assertEquals("TXN1", payments.get(0).getTransactionId());
+        assertEquals("500", payments.get(0).getAmount());
+        assertEquals("Ramesh Kumar", payments.get(0).getSenderName());
+        assertEquals("₹", payments.get(0).getCurrency());
+        assertEquals("hi-IN", payments.get(0).getLanguage());
+        assertEquals("1250.50", payments.get(1).getAmount());
+        assertEquals("$", payments.get(1).getCurrency());
+        assertEquals("en-US", payments.get(1).getLanguage());
+    }
+
+    @Test
+    public void unescapesSeparatorsInValues() {
+        List<PaymentPayload> payments = PaymentBatch.decode(message("T\\|1|10|A\\\\B\\nC"), "m1");
+        assertEquals(1, payments.size());
+        assertEquals("T|1", payments.get(0).getTransactionId());
+        assertEquals("A\\B\nC", payments.get(0).getSenderName());
+    }
+
+    @Test
+    public void skipsBlankLinesAndDefaultsMissingFields() {
+        List<PaymentPayload> payments = PaymentBatch.decode(message("\r\n|20\n\n  |  \nTXN3\n"), "m1");
+        assertEquals(2, payments.size());
+        assertEquals("20", payments.get(0).getAmount());
+        assertEquals(PaymentPayload.DEFAULT_SENDER, payments.get(0).getSenderName());
+        assertEquals(PaymentPayload.DEFAULT_AMOUNT, payments.get(1).getAmount());
+        assertNull(payments.get(1).getImageUrl());
+    }
+
+    @Test
+    public void entriesWithoutTransactionIdGetDistinctDedupKeys() {
+        List<PaymentPayload> payments = PaymentBatch.decode(message("|100\n|100"), "m1");
+        assertEquals(2, payments.size());
+        assertEquals("msg:m1#0", payments.get(0).getDedupKey());
+        assertEquals("msg:m1#1", payments.get(1).getDedupKey());
+    }
+
+    @Test
+    public void capsTheNumberOfEntries() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < PaymentBatch.MAX_ENTRIES + 10; i++) sb.append("T").append(i).append("|1\n");
+        assertEquals(PaymentBatch.MAX_ENTRIES, PaymentBatch.decode(message(sb.toString()), "m1").size());
+    }
+
+    @Test
+    public void detectsBatchMessages() {
+        assertTrue(PaymentBatch.isBatch(message("")));
+        assertFalse(PaymentBatch.isBatch(message(null)));
+        assertTrue(PaymentBatch.decode(message(""), "m1").isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PaymentDedupIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void detectsDuplicates() {
+        PaymentDedupIndex index = new PaymentDedupIndex(null, 16);
+        assertFalse(index.checkAndRecord("txn-1"));
+        assertFalse(index.checkAndRecord("txn-2"));
+        assertTrue(index.checkAndRecord("txn-1"));
+        assertTrue(index.checkAndRecord("txn-2"));
+        assertFalse(index.checkAndRecord(""));
+        assertFalse(index.checkAndRecord(""));
+        assertFalse(index.checkAndRecord(null));
+
+        assertEquals(2, index.getDuplicates());
+        assertEquals(2, index.getEntryCount());
+    }
+
+    @Test
+    public void forgetsIdsEvictedFromTheRing() {
+        PaymentDedupIndex index = new PaymentDedupIndex(null, 16);
+        for (int i = 0; i < 16; i++) {
+            assertFalse(index.checkAndRecord("txn-" + i));
+        }
+        // The seventeenth ID overwrites the oldest slot.
+        assertFalse(index.checkAndRecord("txn-16"));
+        assertEquals(16, index.getEntryCount());
+
+        // Still in the previous bloom generation, so this is a bloom hit the ring turns down.
+        long falsePositives = index.getBloomFalsePositives();
+        assertFalse(index.checkAndRecord("txn-0"));
+        assertEquals(falsePositives + 1, index.getBloomFalsePositives());
+
+        for (int i = 2; i <= 16; i++) {
+            assertTrue("txn-" + i, index.checkAndRecord("txn-" + i));
+        }
+        assertFalse(index.checkAndRecord("txn-1"));
+    }
+
+    @Test
+    public void bloomFalsePositivesFallThroughToTheRing() {
+        PaymentDedupIndex index = new PaymentDedupIndex(null, 16);
+        for (int i = 0; i < 5000; i++) {
+            assertFalse("txn-" + i, index.checkAndRecord("txn-" + i));
+        }
+        assertEquals(0, index.getDuplicates());
+        assertTrue(index.getBloomFalsePositives() > 0);
+        assertEquals(5000, index.getBloomNegatives() + index.getBloomFalsePositives());
+
+        // The most recent ring's worth of IDs is still known after all the churn.
+        for (int i = 5000 - 16; i < 5000; i++) {
+            assertTrue("txn-" + i, index.checkAndRecord("txn-" + i));
+        }
+    }
+
+    @Test
+    public void reloadsFromThePersistedFile() throws Exception {
+        File file = new File(folder.getRoot(), "dedup.bin");
+        PaymentDedupIndex index = new PaymentDedupIndex(file, 16);
+        for (int i = 0; i < 20; i++) {
+            index.checkAndRecord("txn-" + i);
+        }
+        index.close();
+
+        PaymentDedupIndex reloaded = new PaymentDedupIndex(file, 16);
+        assertEquals(16, reloaded.getEntryCount());
+        for (int i = 4; i < 20; i++) {
+            assertTrue("txn-" + i, reloaded.checkAndRecord("txn-" + i));
+        }
+        assertFalse(reloaded.checkAndRecord("txn-3"));
+        assertEquals(0, reloaded.getWriteErrors());
+        reloaded.close();
+
+        // A file written with another capacity is discarded rather than misread.
+        PaymentDedupIndex resized = new PaymentDedupIndex(file, 32);
+        assertEquals(0, resized.getEntryCount());
+        assertFalse(resized.checkAndRecord("txn-19"));
+        resized.close();
+    }
+}
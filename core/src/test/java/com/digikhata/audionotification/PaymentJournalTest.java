@@ -0,0 +1,94 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PaymentJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void pagesNewestFirstWithCursor() throws Exception {
+        PaymentJournal journal = new PaymentJournal(folder.newFolder());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, journal.append(1000 + i, 900 + i, "txn" + i, "10" + i, "₹", "Sender " + i));
+        }
+
+        PaymentJournal.Page first = journal.query(0, Long.MAX_VALUE, -1, 2);
+        assertEquals(2, first.entries.size());
+        assertEquals("txn4", first.entries.get(0).transactionId);
+        assertEquals("txn3", first.entries.get(1).transactionId);
+        assertEquals(2, first.nextCursor);
+
+        PaymentJournal.Page second = journal.query(0, Long.MAX_VALUE, first.nextCursor, 10);
+        assertEquals(3, second.entries.size());
+        assertEquals("txn0", second.entries.get(2).transactionId);
+        assertEquals("Sender 0", second.entries.get(2).senderName);
+        assertEquals(900, second.entries.get(2).sentAt);
+        assertEquals(-1, second.nextCursor);
+    }
+
+    @Test
+    public void filtersByTimeRange() throws Exception {
+        PaymentJournal journal = new PaymentJournal(folder.newFolder());
+        for (int i = 0; i < 10; i++) {
+            journal.append(i * 100, 0, "txn" + i, "1", "₹", "S");
+        }
+        PaymentJournal.Page page = journal.query(300, 600, -1, 2);
+        assertEquals("txn6", page.entries.get(0).transactionId);
+        assertEquals("txn5", page.entries.get(1).transactionId);
+        page = journal.query(300, 600, page.nextCursor, 10);
+        assertEquals(2, page.entries.size());
+        assertEquals("txn3", page.entries.get(1).transactionId);
+        assertEquals(-1, page.nextCursor);
+    }
+
+    @Test
+    public void reopensAndDropsTornTail() throws Exception {
+        File dir = folder.newFolder();
+        PaymentJournal journal = new PaymentJournal(dir);
+        journal.append(1, 0, "a", "1", "₹", "A");
+        journal.append(2, 0, "b", "2", "₹", "B");
+        journal.close();
+
+        File segment = dir.listFiles()[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        PaymentJournal reopened = new PaymentJournal(dir);
+        assertEquals(1, reopened.getEntryCount());
+        assertTrue(reopened.getTruncatedBytes() > 0);
+        assertEquals(1, reopened.append(3, 0, "c", "3", "₹", "C"));
+        PaymentJournal.Page page = reopened.query(0, Long.MAX_VALUE, -1, 10);
+        assertEquals("c", page.entries.get(0).transactionId);
+        assertEquals("a", page.entries.get(1).transactionId);
+    }
+
+    @Test
+    public void dropsOldestSegmentsPastRetention() throws Exception {
+        File dir = folder.newFolder();
+        PaymentJournal journal = new PaymentJournal(dir, 4096, 2);
+        for (int i = 0; i < 500; i++) {
+            journal.append(i, 0, "txn" + i, "100", "₹", "Sender");
+        }
+        assertEquals(2, journal.getSegmentCount());
+        assertEquals(2, dir.listFiles().length);
+        assertTrue(journal.getEntryCount() < 500);
+
+        PaymentJournal.Page page = journal.query(0, Long.MAX_VALUE, -1, PaymentJournal.MAX_PAGE_SIZE);
+        assertEquals(journal.getEntryCount(), page.entries.size());
+        assertEquals("txn499", page.entries.get(0).transactionId);
+        assertEquals(500 - journal.getEntryCount(), page.entries.get(page.entries.size() - 1).sequence);
+
+        PaymentJournal reopened = new PaymentJournal(dir, 4096, 2);
+        assertEquals(journal.getEntryCount(), reopened.getEntryCount());
+        assertEquals(500, reopened.append(500, 0, "txn500", "1", "₹", "S"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PaymentTotalsTest {
+    private static final TimeZone IST = TimeZone.getTimeZone("Asia/Kolkata");
+    // 2024-10-17 10:00 IST.
+    private static final long MORNING = 1729139400000L;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sumsTodayPerSender() {
+        PaymentTotals totals = new PaymentTotals(null, 16, IST);
+        totals.record(MORNING, "100", "₹", "Ramesh");
+        totals.record(MORNING + HOUR, "250.50", "₹", " ramesh ");
+        totals.record(MORNING + 2 * HOUR, "40", "₹", "Sita");
+        totals.record(MORNING + 3 * HOUR, "abc", "₹", "Sita");
+        totals.record(MORNING + 4 * HOUR, "5", "$", "Tourist");
+
+        PaymentTotals.Day today = totals.getToday(MORNING + 5 * HOUR);
+        assertEquals("2024-10-17", PaymentTotals.formatDay(today.epochDay));
+        assertEquals(5, today.count);
+        assertEquals(39050, today.totalMinor);
+        assertEquals("₹", today.currency);
+        assertEquals(1, today.invalid);
+        assertEquals(1, today.otherCurrency);
+
+        List<PaymentTotals.Sender> senders = totals.getTopSenders(MORNING + 5 * HOUR, 2);
+        assertEquals(2, senders.size());
+        assertEquals("Ramesh", senders.get(0).name);
+        assertEquals(2, senders.get(0).count);
+        assertEquals(35050, senders.get(0).totalMinor);
+        assertEquals("Sita", senders.get(1).name);
+        assertEquals(2, senders.get(1).count);
+        assertEquals(3, totals.getSenderCount());
+    }
+
+    @Test
+    public void rollsOverAtLocalMidnight() {
+        PaymentTotals totals = new PaymentTotals(null, 16, IST);
+        totals.record(MORNING, "100", "₹", "Ramesh");
+        // 23:59 IST the same day, then 00:01 IST the next day.
+        long beforeMidnight = MORNING + 14 * HOUR - 60_000;
+        totals.record(beforeMidnight, "50", "₹", "Sita");
+        assertEquals(2, totals.getToday(beforeMidnight).count);
+
+        long afterMidnight = beforeMidnight + 120_000;
+        PaymentTotals.Day today = totals.getToday(afterMidnight);
+        assertEquals("2024-10-18", PaymentTotals.formatDay(today.epochDay));
+        assertEquals(0, today.count);
+        assertEquals(15000, totals.getYesterday(afterMidnight).totalMinor);
+        assertTrue(totals.getTopSenders(afterMidnight, 10).isEmpty());
+
+        // Two days later yesterday had nothing.
+        assertEquals(0, totals.getYesterday(afterMidnight + 48 * HOUR).count);
+    }
+
+    @Test
+    public void countsSendersBeyondCapacityAsOthers() {
+        PaymentTotals totals = new PaymentTotals(null, 2, IST);
+        totals.record(MORNING, "10", "₹", "A");
+        totals.record(MORNING, "20", "₹", "B");
+        totals.record(MORNING, "30", "₹", "C");
+        totals.record(MORNING, "40", "₹", "D");
+        totals.record(MORNING, "1", "₹", "A");
+        assertEquals(2, totals.getSenderCount());
+        PaymentTotals.Sender others = totals.getOtherSenders(MORNING);
+        assertEquals(2, others.count);
+        assertEquals(7000, others.totalMinor);
+        assertEquals(1100, totals.getTopSenders(MORNING, 10).get(1).totalMinor);
+    }
+
+    @Test
+    public void survivesReopen() throws Exception {
+        File file = new File(folder.newFolder(), "totals.bin");
+        PaymentTotals totals = new PaymentTotals(file, 16, IST);
+        totals.record(MORNING, "100", "₹", "Ramesh Kumar");
+        totals.record(MORNING, "25", "₹", "सीता");
+        totals.close();
+
+        PaymentTotals reopened = new PaymentTotals(file, 16, IST);
+        PaymentTotals.Day today = reopened.getToday(MORNING);
+        assertEquals(2, today.count);
+        assertEquals(12500, today.totalMinor);
+        assertEquals("₹", today.currency);
+        reopened.record(MORNING, "5", "₹", "सीता");
+        List<PaymentTotals.Sender> senders = reopened.getTopSenders(MORNING, 10);
+        assertEquals("Ramesh Kumar", senders.get(0).name);
+        assertEquals("सीता", senders.get(1).name);
+        assertEquals(2, senders.get(1).count);
+        assertEquals(0, reopened.getWriteErrors());
+    }
+
+    @Test
+    public void speaksDaySummary() {
+        assertEquals("Shop received two payments totalling one hundred fifty rupees today",
+                AnnouncementText.daySummary(2, 15000, "₹", "Shop"));
+        assertEquals("Shop has received no payments today", AnnouncementText.daySummary(0, 0, "₹", "Shop"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PostRateLimiterTest {
+
+    @Test
+    public void allowsBurstThenRefillsAtRate() {
+        PostRateLimiter limiter = new PostRateLimiter(4, 4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(1000));
+        }
+        assertFalse(limiter.tryAcquire(1000));
+        assertEquals(250, limiter.delayUntilAvailable(1000));
+
+        assertFalse(limiter.tryAcquire(1249));
+        assertTrue(limiter.tryAcquire(1250));
+        assertFalse(limiter.tryAcquire(1250));
+    }
+
+    @Test
+    public void idleTimeDoesNotExceedBurst() {
+        PostRateLimiter limiter = new PostRateLimiter(4, 2);
+        assertTrue(limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(60000));
+        assertTrue(limiter.tryAcquire(60000));
+        assertFalse(limiter.tryAcquire(60000));
+    }
+
+    @Test
+    public void clockGoingBackwardsDoesNotGrantPermits() {
+        PostRateLimiter limiter = new PostRateLimiter(4, 1);
+        assertTrue(limiter.tryAcquire(5000));
+        assertFalse(limiter.tryAcquire(4000));
+        assertFalse(limiter.tryAcquire(5100));
+        assertTrue(limiter.tryAcquire(5250));
+    }
+}
@@ -0,0 +1,76 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Covers {@link Money} parsing and formatting and the words produced by {@link SpokenAmount}.
+ */
+public class SpokenAmountTest {
+
+    @Test
+    public void parseMinorHandlesCommonForms() {
+        assertEquals(50000, Money.parseMinor("500"));
+        assertEquals(50000, Money.parseMinor("500.0"));
+        assertEquals(125050, Money.parseMinor(" 1,250.50 "));
+        assertEquals(12500000, Money.parseMinor("1,25,000"));
+        assertEquals(5, Money.parseMinor("0.05"));
+        assertEquals(-1000, Money.parseMinor("-10"));
+    }
+
+    @Test
+    public void parseMinorRejectsGarbage() {
+        assertEquals(Money.INVALID, Money.parseMinor(null));
+        assertEquals(Money.INVALID, Money.parseMinor(""));
+        assertEquals(Money.INVALID, Money.parseMinor("abc"));
+        assertEquals(Money.INVALID, Money.parseMinor("1.234"));
+        assertEquals(Money.INVALID, Money.parseMinor("1.2.3"));
+        assertEquals(Money.INVALID, Money.parseMinor("."));
+        assertEquals(Money.INVALID, Money.parseMinor("99999999999999999999"));
+    }
+
+    @Test
+    public void formatsPlainAndIndianGrouped() {
+        assertEquals("500", Money.toPlainString(50000));
+        assertEquals("1250.50", Money.toPlainString(125050));
+        assertEquals("12,34,56,789.05", Money.appendIndianGrouped(123456789_05L, new StringBuilder()).toString());
+        assertEquals("999", Money.appendIndianGrouped(99900, new StringBuilder()).toString());
+    }
+
+    @Test
+    public void speaksRupeesAndPaise() {
+        assertEquals("one thousand two hundred fifty rupees", SpokenAmount.toWords(125000, "₹"));
+        assertEquals("five hundred rupees", SpokenAmount.toWords(Money.parseMinor("500.0"), "Rs."));
+        assertEquals("one rupee and one paisa", SpokenAmount.toWords(101, "INR"));
+        assertEquals("fifty paise", SpokenAmount.toWords(50, "₹"));
+        assertEquals("zero rupees", SpokenAmount.toWords(0, "₹"));
+    }
+
+    @Test
+    public void usesLakhAndCroreGrouping() {
+        assertEquals("one lakh twenty five thousand rupees", SpokenAmount.toWords(12500000, "₹"));
+        assertEquals("twelve crore thirty four lakh fifty six thousand seven hundred eighty nine rupees",
+                SpokenAmount.toWords(123456789_00L, "₹"));
+        assertEquals("one hundred crore rupees", SpokenAmount.toWords(1_000_000_000_00L, "₹"));
+    }
+
+    @Test
+    public void keepsUnknownCurrencyCode() {
+        assertEquals("EUR twelve point zero five", SpokenAmount.toWords(1205, "EUR"));
+        assertEquals("twelve dollars and fifty cents", SpokenAmount.toWords(1250, "USD"));
+    }
+
+    @Test
+    public void announcementTextUsesWords() {
+        assertEquals("five hundred rupees received from Asha on Shop",
+                AnnouncementText.payment("500", "₹", "Asha", "Shop"));
+        assertEquals("₹ n/a received from Asha on Shop", AnnouncementText.payment("n/a", "₹", "Asha", "Shop"));
+
+        Announcement summary = Announcement.payment("250", "₹", "a");
+        summary.absorb(Announcement.payment("1,000", "₹", "b"));
+        summary.absorb(Announcement.payment("0.50", "₹", "c"));
+        assertEquals("three payments totalling one thousand two hundred fifty rupees and fifty paise received on Shop",
+                AnnouncementText.forAnnouncement(summary, "Shop"));
+    }
+}
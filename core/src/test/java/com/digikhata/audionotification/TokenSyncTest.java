@@ -0,0 +1,195 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Exercises {@link TokenSync} and {@link HttpTokenEndpoint} against a local HTTP stand-in.
+ */
+public class TokenSyncTest {
+
+    private HttpServer server;
+    private String endpointUrl;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService executor;
+    private File dir;
+
+    /** Always draws the shortest backoff so retries stay fast. */
+    private static final Random NO_JITTER = new Random() {
+        @Override
+        public double nextDouble() {
+            return 0;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/tokens", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[256];
+                int read;
+                while ((read = in.read(buffer)) != -1) body.write(buffer, 0, read);
+                bodies.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            }
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 204, -1);
+            exchange.close();
+        });
+        server.start();
+        endpointUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/tokens";
+        executor = Executors.newSingleThreadScheduledExecutor();
+        dir = Files.createTempDirectory("token-sync").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        server.stop(0);
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private TokenSync create(TokenSync.Endpoint endpoint) {
+        return new TokenSync(new File(dir, "token.bin"), endpoint, executor, NO_JITTER, 50);
+    }
+
+    private HttpTokenEndpoint endpoint() throws Exception {
+        return new HttpTokenEndpoint(endpointUrl, 1000, 1000);
+    }
+
+    private static void awaitUploads(TokenSync sync, long uploads) throws InterruptedException {
+        for (int i = 0; i < 100 && sync.getUploads() < uploads; i++) Thread.sleep(50);
+    }
+
+    @Test
+    public void unchangedTokenIsUploadedOnce() throws Exception {
+        TokenSync sync = create(endpoint());
+        sync.onToken("tok-1");
+        awaitUploads(sync, 1);
+        sync.onToken("tok-1");
+        Thread.sleep(200);
+
+        assertEquals(1, bodies.size());
+        assertEquals("{\"token\":\"tok-1\",\"platform\":\"android\"}", bodies.get(0));
+        assertEquals("tok-1", sync.getRegisteredToken());
+        assertEquals(1, sync.getSkipped());
+
+        // The registered token survives a restart.
+        TokenSync restarted = create(endpoint());
+        restarted.onToken("tok-1");
+        Thread.sleep(200);
+        assertEquals(1, bodies.size());
+        assertEquals(1, restarted.getSkipped());
+    }
+
+    @Test
+    public void rapidChangesAreCoalesced() throws Exception {
+        TokenSync sync = create(endpoint());
+        sync.onToken("tok-1");
+        sync.onToken("tok-2");
+        sync.onToken("tok-3");
+        awaitUploads(sync, 1);
+        Thread.sleep(200);
+
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0).contains("tok-3"));
+        assertEquals(2, sync.getCoalesced());
+        assertNull(sync.getPendingToken());
+    }
+
+    @Test
+    public void serverErrorsAreRetriedWithBackoff() throws Exception {
+        statuses.add(503);
+        statuses.add(429);
+        TokenSync sync = create(endpoint());
+        sync.onToken("tok-1");
+        awaitUploads(sync, 1);
+
+        assertEquals(3, bodies.size());
+        assertEquals(2, sync.getFailures());
+        assertEquals(1, sync.getUploads());
+        assertEquals("tok-1", sync.getRegisteredToken());
+    }
+
+    @Test
+    public void refusedTokenIsNotRetried() throws Exception {
+        statuses.add(400);
+        TokenSync sync = create(endpoint());
+        sync.onToken("tok-1");
+        Thread.sleep(500);
+
+        assertEquals(1, bodies.size());
+        assertEquals(1, sync.getRejected());
+        assertNull(sync.getPendingToken());
+        assertNull(sync.getRegisteredToken());
+    }
+
+    @Test
+    public void pendingTokenWaitsForEndpointAcrossRestart() throws Exception {
+        TokenSync offline = create(null);
+        offline.onToken("tok-1");
+        Thread.sleep(200);
+        assertEquals("tok-1", offline.getPendingToken());
+        assertTrue(bodies.isEmpty());
+
+        TokenSync restarted = create(endpoint());
+        awaitUploads(restarted, 1);
+        assertEquals(1, bodies.size());
+        assertEquals("tok-1", restarted.getRegisteredToken());
+    }
+
+    @Test
+    public void tokenChangedBackDuringUploadIsRegisteredAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        TokenSync.Endpoint blocking = token -> {
+            sent.add(token);
+            if (token.equals("tok-2")) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        TokenSync sync = create(blocking);
+        sync.onToken("tok-1");
+        awaitUploads(sync, 1);
+
+        sync.onToken("tok-2");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Back to the registered token while the other one is still being uploaded.
+        sync.onToken("tok-1");
+        release.countDown();
+        awaitUploads(sync, 3);
+
+        assertEquals(Arrays.asList("tok-1", "tok-2", "tok-1"), sent);
+        assertEquals("tok-1", sync.getRegisteredToken());
+        assertNull(sync.getPendingToken());
+    }
+}
@@ -0,0 +1,113 @@
+package com.digikhata.audionotification;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TtsSynthesisCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void put(DiskLruCache cache, String key, int bytes) throws IOException {
+        File temp = cache.beginWrite(key);
+        assertNotNull(temp);
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(new byte[bytes]);
+        }
+        assertTrue(cache.commit(key));
+    }
+
+    @Test
+    public void keyIgnoresCaseAndWhitespaceButNotVoice() {
+        String key = TtsSynthesisCache.keyFor("  Received ₹500\tfrom  Ravi ", "en-IN", "voice-a");
+        assertEquals(key, TtsSynthesisCache.keyFor("received ₹500 from ravi", "en-IN", "voice-a"));
+        assertNotEquals(key, TtsSynthesisCache.keyFor("received ₹500 from ravi", "en-IN", "voice-b"));
+        assertNotEquals(key, TtsSynthesisCache.keyFor("received ₹500 from ravi", "hi-IN", "voice-a"));
+        assertEquals(16, key.length());
+    }
+
+    @Test
+    public void missesUntilCommittedThenHits() throws Exception {
+        TtsSynthesisCache cache = new TtsSynthesisCache(folder.getRoot(), 1000);
+        String key = TtsSynthesisCache.keyFor("hello", "en-IN", null);
+        assertNull(cache.get(key));
+
+        put(cache, key, 100);
+        File cached = cache.get(key);
+        assertNotNull(cached);
+        assertTrue(cached.getName().endsWith(".wav"));
+        assertNull(cache.beginWrite(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(100, cache.getTotalBytes());
+
+        // An empty or aborted write publishes nothing.
+        String other = TtsSynthesisCache.keyFor("bye", "en-IN", null);
+        cache.beginWrite(other);
+        cache.abort(other);
+        assertFalse(cache.commit(other));
+        assertNull(cache.get(other));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverBudget() throws Exception {
+        TtsSynthesisCache cache = new TtsSynthesisCache(folder.getRoot(), 300);
+        put(cache, "a", 100);
+        put(cache, "b", 100);
+        put(cache, "c", 100);
+        // Reading "a" makes "b" the least recently used.
+        assertNotNull(cache.get("a"));
+
+        put(cache, "d", 100);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(300, cache.getTotalBytes());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        assertFalse(new File(folder.getRoot(), "b.wav").exists());
+
+        // An entry larger than the whole budget is refused rather than flushing the cache.
+        File temp = cache.beginWrite("huge");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(new byte[301]);
+        }
+        assertFalse(cache.commit("huge"));
+        assertEquals(3, cache.getEntryCount());
+    }
+
+    @Test
+    public void recoversFromInterruptedWritesOnReload() throws Exception {
+        File dir = folder.getRoot();
+        TtsSynthesisCache cache = new TtsSynthesisCache(dir, 1000);
+        put(cache, "old", 100);
+        put(cache, "new", 100);
+        new File(dir, "old.wav").setLastModified(1_000_000L);
+        new File(dir, "new.wav").setLastModified(2_000_000L);
+        // A write torn by process death leaves its temporary file behind.
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "torn.tmp"))) {
+            out.write(new byte[50]);
+        }
+
+        TtsSynthesisCache reloaded = new TtsSynthesisCache(dir, 150);
+        assertEquals(1, reloaded.getEntryCount());
+        assertEquals(100, reloaded.getTotalBytes());
+        assertFalse(new File(dir, "torn.tmp").exists());
+        // Trimming to the smaller budget on load drops the oldest entry.
+        assertNull(reloaded.get("old"));
+        assertNotNull(reloaded.get("new"));
+
+        // A published file deleted behind the cache's back is treated as a miss.
+        new File(dir, "new.wav").delete();
+        assertNull(reloaded.get("new"));
+        assertEquals(0, reloaded.getTotalBytes());
+        assertNotNull(reloaded.beginWrite("new"));
+    }
+}
@@ -1,6 +1,25 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
 export interface NativeAudioNotificationPlugin {
   echo(options: { value: string }): Promise<{ value: string }>;
-  configure(): Promise<void>;
+  /**
+   * languages lists BCP 47 tags (e.g. hi-IN, mr-IN, ta-IN) whose TTS engines are warmed at startup.
+   * announcer 'clips' speaks amounts from the app's prerecorded clip bank (assets/audio_clips/en.clips)
+   * and only the sender through TTS; it falls back to TTS when no bank is installed.
+   * Payments older than staleAfterMs (default 15 s) since their FCM send time are spoken
+   * briefly, and those older than expireAfterMs (default 60 s) are not announced.
+   * tokenEndpoint is the URL the FCM token is POSTed to as {"token": ...} when it changes;
+   * an empty string stops uploads.
+   */
+  configure(options?: {
+    queueDepth?: number;
+    coalesceThreshold?: number;
+    languages?: string[];
+    announcer?: 'tts' | 'clips';
+    staleAfterMs?: number;
+    expireAfterMs?: number;
+    tokenEndpoint?: string;
+  }): Promise<void>;
   testNotification(options: {
     amount: string;
     currency?: string;
@@ -10,6 +29,305 @@ export interface NativeAudioNotificationPlugin {
   }): Promise<void>;
   setMerchantInfo(options: { businessName: string }): Promise<{ businessName: string }>;
   toggleNotifications(options: { enabled?: boolean }): Promise<{ enabled: boolean }>;
-  playTts(options: { text?: string }): Promise<void>;
+  playTts(options: { text?: string; lang?: string }): Promise<void>;
   stopTts(): Promise<void>;
-}
\ No newline at end of file
+  /**
+   * Acknowledges every payment: stops speech, drops queued announcements and removes the
+   * payment notifications, as the summary notification's "Acknowledge all" action does.
+   */
+  acknowledgeAll(): Promise<void>;
+  getStats(): Promise<NativeAudioNotificationStats>;
+  getMetrics(options?: { reset?: boolean }): Promise<PaymentMetricsResult>;
+  /**
+   * The most recent pipeline events from the native flight recorder, oldest first, formatted
+   * as text only when dumped. limit caps the number of events; clear empties the recorder.
+   */
+  dumpTrace(options?: { limit?: number; clear?: boolean }): Promise<TraceDump>;
+  getRecentPayments(options?: RecentPaymentsOptions): Promise<RecentPaymentsResult>;
+  /**
+   * Today's payment count and total, overall and per sender, kept on the device.
+   */
+  getTotals(options?: TotalsOptions): Promise<TotalsResult>;
+  /**
+   * Payments received while the app is running, delivered in batches.
+   */
+  addListener(
+    eventName: 'paymentReceived',
+    listenerFunc: (event: PaymentReceivedEvent) => void,
+  ): Promise<PluginListenerHandle>;
+  /**
+   * Announcement playback transitions, delivered in batches.
+   */
+  addListener(
+    eventName: 'announcementState',
+    listenerFunc: (event: AnnouncementStateEvent) => void,
+  ): Promise<PluginListenerHandle>;
+  removeAllListeners(): Promise<void>;
+}
+
+export interface PaymentReceivedEvent {
+  payments: ReceivedPayment[];
+  /** Events dropped because the listener fell behind; use getRecentPayments to catch up. */
+  dropped: number;
+}
+
+export interface ReceivedPayment {
+  /** Journal sequence, or -1 if the payment could not be journaled. */
+  sequence: number;
+  receivedAt: number;
+  transactionId: string;
+  amount: string;
+  currency: string;
+  senderName: string;
+}
+
+export interface AnnouncementStateEvent {
+  states: AnnouncementStateChange[];
+  dropped: number;
+}
+
+export interface AnnouncementStateChange {
+  state: 'started' | 'done' | 'error' | 'stopped';
+  utteranceId: string;
+  at: number;
+  /** Announcements still waiting after this one. */
+  queued: number;
+  kind?: 'payment' | 'summary' | 'text';
+  paymentCount?: number;
+}
+
+export interface RecentPaymentsOptions {
+  /** Earliest receivedAt to include, in epoch milliseconds. */
+  since?: number;
+  /** Latest receivedAt to include, in epoch milliseconds. */
+  until?: number;
+  /** The nextCursor of the previous page. */
+  cursor?: number;
+  /** Page size, at most 500. Defaults to 50. */
+  limit?: number;
+}
+
+export interface RecentPaymentsResult {
+  /** Newest first. */
+  payments: JournaledPayment[];
+  /** Present when older entries remain. */
+  nextCursor?: number;
+}
+
+export interface TotalsOptions {
+  /** The number of top senders to return. Defaults to 10. */
+  senderLimit?: number;
+  /** Also speak the day's total. */
+  speak?: boolean;
+}
+
+export interface DayTotals {
+  /** The local date, e.g. 2024-10-17, or null before the first payment. */
+  date: string | null;
+  count: number;
+  /** The sum of the payments in currency, in minor units. */
+  totalMinor: number;
+  /** The same sum as a decimal string, e.g. 1250.50. */
+  total: string;
+  /** The currency of the day's first payment. */
+  currency?: string;
+  /** Payments whose amount could not be parsed. */
+  invalid: number;
+  /** Payments in another currency, counted but not summed. */
+  otherCurrency: number;
+}
+
+export interface TotalsResult extends DayTotals {
+  yesterday: DayTotals;
+  /** Highest total first. */
+  senders: SenderTotals[];
+  /** Payments from senders beyond the tracked number of senders. */
+  otherSenders?: Omit<SenderTotals, 'name'>;
+}
+
+export interface SenderTotals {
+  name: string;
+  count: number;
+  totalMinor: number;
+  total: string;
+}
+
+export interface JournaledPayment {
+  sequence: number;
+  receivedAt: number;
+  sentAt: number;
+  transactionId: string;
+  amount: string;
+  currency: string;
+  senderName: string;
+}
+
+export interface PaymentMetricsResult {
+  since: number;
+  histograms: {
+    transport: LatencyStats;
+    receivedToPosted: LatencyStats;
+    receivedToSpeechStart: LatencyStats;
+    speechDuration: LatencyStats;
+    endToEnd: LatencyStats;
+    audioCommand: LatencyStats;
+  };
+}
+
+export interface TraceDump {
+  /** One line per event, e.g. "12:04:31.118 +3ms SPEECH_STARTED utterance=7 sinceDispatchMs=41". */
+  events: string[];
+  /** Events recorded since the app started, including those overwritten. */
+  recorded: number;
+  /** The number of events the recorder keeps. */
+  capacity: number;
+}
+
+export interface LatencyStats {
+  count: number;
+  min: number;
+  max: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+}
+
+export interface NativeAudioNotificationStats {
+  synthesisCache?: SynthesisCacheStats;
+  announcementQueue?: AnnouncementQueueStats;
+  retry?: RetryQueueStats;
+  dedup?: DedupStats;
+  engine?: EngineStats;
+  wakeLock?: WakeLockStats;
+  notifications?: NotificationPostStats;
+  journal?: PaymentJournalStats;
+  events?: PaymentEventStats;
+  tokenSync?: TokenSyncStats;
+}
+
+export interface SynthesisCacheStats {
+  hits: number;
+  misses: number;
+  writes: number;
+  evictions: number;
+  entries: number;
+  bytes: number;
+  maxBytes: number;
+}
+
+export interface AnnouncementQueueStats {
+  pending: number;
+  maxDepth: number;
+  coalesceThreshold: number;
+  enqueued: number;
+  coalesced: number;
+  dropped: number;
+  /** Payments dropped because they were older than expireAfterMs. */
+  expired: number;
+  /** Times a waiting announcement was overtaken by a higher-priority one. */
+  preempted: number;
+  /** Payments spoken without sender and business because they were older than staleAfterMs. */
+  shortened: number;
+  /** Announcements cancelled, queued or playing, because their notification was acknowledged. */
+  acknowledged: number;
+  staleAfterMs: number;
+  expireAfterMs: number;
+}
+
+export interface RetryQueueStats {
+  /** Failed announcements waiting for another attempt. */
+  pending: number;
+  /** Retries scheduled after an engine error, a rejected utterance or an unavailable engine. */
+  scheduled: number;
+  /** Announcements handed back to the queue for another attempt. */
+  retried: number;
+  /** Failed announcements given up on: out of attempts, too old or evicted. */
+  abandoned: number;
+  /** How long after its origin an announcement may still be retried; follows expireAfterMs. */
+  maxAgeMs: number;
+}
+
+export interface TokenSyncStats {
+  /** Whether a token has been registered with the backend. */
+  registered: boolean;
+  /** Whether a changed token is waiting to be uploaded. */
+  pending: boolean;
+  /** Tokens handed over by FCM. */
+  requested: number;
+  /** Tokens not uploaded because they were already registered or pending. */
+  skipped: number;
+  /** Pending tokens replaced by a newer one before they were uploaded. */
+  coalesced: number;
+  uploads: number;
+  /** Failed uploads that were retried with backoff. */
+  failures: number;
+  /** Tokens refused by the backend with a 4xx response. */
+  rejected: number;
+}
+
+export interface DedupStats {
+  lookups: number;
+  duplicates: number;
+  bloomNegatives: number;
+  bloomFalsePositives: number;
+  entries: number;
+  capacity: number;
+  memoryBytes: number;
+}
+
+export interface EngineStats {
+  state: 'INITIALIZING' | 'READY' | 'FAILED' | 'REINITIALIZING';
+  initDurationMs: number;
+  timeToFirstAudioMs: number;
+  bufferedBeforeReady: number;
+  reinitializations: number;
+  /** TTS engines currently kept for non-default languages. */
+  languageEngines?: number;
+  languageEnginesCreated?: number;
+  languageEngineEvictions?: number;
+  /** Announcements spoken in the default language because their engine was not ready. */
+  languageFallbacks: number;
+  announcer: 'tts' | 'clips';
+  /** Payment amounts played from the prerecorded clip bank. */
+  clipAnnouncements: number;
+  /** Clip announcements spoken through TTS because the bank lacked a word or was busy. */
+  clipFallbacks: number;
+  /** Commands submitted to the audio thread. */
+  commandsSubmitted: number;
+  commandsPending: number;
+  /** Commands dropped because the engine had been shut down. */
+  commandsRejected: number;
+}
+
+export interface WakeLockStats {
+  held: boolean;
+  references: number;
+  acquisitions: number;
+  requests: number;
+  totalHeldMs: number;
+  longestHoldMs: number;
+  safetyTimeouts: number;
+}
+
+export interface NotificationPostStats {
+  posted: number;
+  summaryUpdates: number;
+  coalesced: number;
+  suppressed: number;
+  groupSize: number;
+}
+
+export interface PaymentJournalStats {
+  entries: number;
+  segments: number;
+  appends: number;
+  writeErrors: number;
+  truncatedBytes: number;
+}
+
+export interface PaymentEventStats {
+  emitted: number;
+  batches: number;
+  dropped: number;
+}
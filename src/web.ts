@@ -1,5 +1,14 @@
 import { WebPlugin } from '@capacitor/core';
-import type { NativeAudioNotificationPlugin } from './definitions';
+import type {
+  NativeAudioNotificationPlugin,
+  NativeAudioNotificationStats,
+  PaymentMetricsResult,
+  RecentPaymentsOptions,
+  RecentPaymentsResult,
+  TotalsOptions,
+  TotalsResult,
+  TraceDump,
+} from './definitions';
 
 export class NativeAudioNotificationWeb extends WebPlugin implements NativeAudioNotificationPlugin {
   async echo(options: { value: string }): Promise<{ value: string }> {
@@ -7,8 +16,16 @@ export class NativeAudioNotificationWeb extends WebPlugin implements NativeAudio
     return options;
   }
 
-  async configure(): Promise<void> {
-    console.log('configure called');
+  async configure(options?: {
+    queueDepth?: number;
+    coalesceThreshold?: number;
+    languages?: string[];
+    announcer?: 'tts' | 'clips';
+    staleAfterMs?: number;
+    expireAfterMs?: number;
+    tokenEndpoint?: string;
+  }): Promise<void> {
+    console.log('configure called', options);
   }
 
   async testNotification(options: {
@@ -31,11 +48,51 @@ export class NativeAudioNotificationWeb extends WebPlugin implements NativeAudio
     return { enabled: options.enabled ?? true };
   }
 
-  async playTts(options: { text?: string }): Promise<void> {
+  async playTts(options: { text?: string; lang?: string }): Promise<void> {
     console.log('playTts', options);
   }
 
   async stopTts(): Promise<void> {
     console.log('stopTts called');
   }
-}
\ No newline at end of file
+
+  async acknowledgeAll(): Promise<void> {
+    console.log('acknowledgeAll called');
+  }
+
+  async getStats(): Promise<NativeAudioNotificationStats> {
+    console.log('getStats called');
+    return {};
+  }
+
+  async dumpTrace(options?: { limit?: number; clear?: boolean }): Promise<TraceDump> {
+    console.log('dumpTrace', options);
+    return { events: [], recorded: 0, capacity: 0 };
+  }
+
+  async getMetrics(options?: { reset?: boolean }): Promise<PaymentMetricsResult> {
+    console.log('getMetrics', options);
+    const empty = { count: 0, min: 0, max: 0, mean: 0, p50: 0, p90: 0, p99: 0 };
+    return {
+      since: Date.now(),
+      histograms: {
+        transport: empty,
+        receivedToPosted: empty,
+        receivedToSpeechStart: empty,
+        speechDuration: empty,
+        endToEnd: empty,
+      },
+    };
+  }
+
+  async getRecentPayments(options?: RecentPaymentsOptions): Promise<RecentPaymentsResult> {
+    console.log('getRecentPayments', options);
+    return { payments: [] };
+  }
+
+  async getTotals(options?: TotalsOptions): Promise<TotalsResult> {
+    console.log('getTotals', options);
+    const empty = { date: null, count: 0, totalMinor: 0, total: '0', invalid: 0, otherCurrency: 0 };
+    return { ...empty, yesterday: empty, senders: [] };
+  }
+}